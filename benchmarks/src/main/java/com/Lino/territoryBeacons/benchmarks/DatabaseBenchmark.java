@@ -0,0 +1,226 @@
+package com.Lino.territoryBeacons.benchmarks;
+
+import com.Lino.territoryBeacons.Territory;
+import com.Lino.territoryBeacons.managers.DatabaseManager;
+import com.Lino.territoryBeacons.metrics.Metrics;
+import com.Lino.territoryBeacons.tasks.IoExecutor;
+import com.Lino.territoryBeacons.tasks.IoLane;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+// DatabaseManager against a real SQLite file in the temp directory, seeded with claims that carry
+// trust lists and effects the way a long-running server's do. Nothing touches the network.
+//   startup        open the connection, check the schema and load every claim (plugin enable)
+//   shutdownSave   write every claim back in one transaction (plugin disable)
+//   createLatency  one new claim, submit to committed
+//   upgradeLatency one claim rewritten with a higher tier, submit to committed
+//   savePlayerData saveAllPlayerData with a full player table's worth of rows
+@State(Scope.Benchmark)
+@Fork(1)
+public class DatabaseBenchmark {
+
+    private static final String WORLD_NAME = "world";
+    private static final String[] EFFECTS = {"regeneration", "speed", "strength", "resistance", "haste",
+            "jump", "fire_resistance", "luck", "night_vision", "water_breathing", "saturation"};
+    private static final int MAX_TRUSTED = 8;
+    private static final long SEED = 42L;
+
+    @Param({"10000"})
+    public int territories;
+
+    @Param({"100000"})
+    public int players;
+
+    private final Logger logger = Logger.getLogger("TerritoryBeacons-bench");
+    private World world;
+    private Path dataFolder;
+    private IoExecutor ioExecutor;
+    private DatabaseManager database;
+    private List<Territory> loaded;
+    private Map<UUID, Long> lastSeen;
+    private Map<UUID, String> names;
+    private int nextCreate;
+    private int nextUpgrade;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        world = FakeWorld.create(WORLD_NAME);
+        dataFolder = Files.createTempDirectory("territorybeacons-bench");
+        ioExecutor = new IoExecutor(logger);
+        database = open();
+        seed(new File(dataFolder.toFile(), "territories.db"));
+
+        loaded = new ArrayList<>(territories);
+        database.loadTerritories(loaded::add);
+
+        Random random = new Random(SEED + 1);
+        lastSeen = new HashMap<>(players);
+        names = new HashMap<>(players);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < players; i++) {
+            UUID playerUUID = new UUID(SEED + 1, i);
+            lastSeen.put(playerUUID, now - random.nextInt(Integer.MAX_VALUE));
+            names.put(playerUUID, "player" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ioExecutor.shutdown(IoLane.DATABASE);
+        database.closeConnection();
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public void startup(Blackhole blackhole) {
+        DatabaseManager fresh = open();
+        fresh.loadTerritories(blackhole::consume);
+        fresh.closeConnection();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void shutdownSave() {
+        database.saveAllTerritories(loaded).join();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void createLatency() {
+        int i = nextCreate++;
+        // Far outside the seeded area so the UNIQUE(world, x, y, z) constraint never trips
+        Location beacon = new Location(world, 10_000_000 + i, 64, 10_000_000);
+        Territory territory = new Territory(new UUID(SEED + 2, i), "new" + i, beacon, 16, 1);
+        database.saveTerritoryToDatabase(territory).join();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void upgradeLatency() {
+        Territory current = loaded.get(nextUpgrade++ % loaded.size());
+        int tier = current.getTier() % 6 + 1;
+        Territory upgraded = new Territory(current.getOwnerUUID(), current.getOwnerName(), current.getBeaconLocation(),
+                TerritoryLayout.TIER_RADII[tier - 1], tier);
+        current.getTrustedPlayers().forEach(upgraded::addTrustedPlayer);
+        current.getUnlockedEffects().forEach(upgraded::unlockEffect);
+        current.getActiveEffects().forEach(upgraded::toggleEffect);
+        database.updateTerritoryInDatabase(upgraded).join();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public void savePlayerData() {
+        database.saveAllPlayerData(lastSeen, names).join();
+    }
+
+    private DatabaseManager open() {
+        DatabaseManager manager = new DatabaseManager(dataFolder.toFile(), logger, ioExecutor,
+                name -> WORLD_NAME.equals(name) ? world : null, new Metrics());
+        if (!manager.initDatabase()) {
+            throw new IllegalStateException("Could not open benchmark database in " + dataFolder);
+        }
+        return manager;
+    }
+
+    // Bulk fixture load in one transaction; the plugin schema is already in place from initDatabase
+    private void seed(File dbFile) throws SQLException {
+        Random random = new Random(SEED);
+        List<Territory> layout = TerritoryLayout.UNIFORM.generate(world, territories, SEED);
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+             PreparedStatement territory = connection.prepareStatement("INSERT OR IGNORE INTO territories (id, owner_uuid, owner_name, territory_name, world, x, y, z, " +
+                     "radius, tier, influence, pvp_enabled, mob_spawning_enabled, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement trusted = connection.prepareStatement("INSERT OR IGNORE INTO trusted_players (territory_id, player_uuid) VALUES (?, ?)");
+             PreparedStatement effect = connection.prepareStatement("INSERT OR IGNORE INTO territory_effects (territory_id, effect_name, is_active) VALUES (?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            int id = 0;
+            for (Territory claim : layout) {
+                id++;
+                Location loc = claim.getBeaconLocation();
+                territory.setInt(1, id);
+                territory.setString(2, claim.getOwnerUUID().toString());
+                territory.setString(3, claim.getOwnerName());
+                territory.setString(4, claim.getTerritoryName());
+                territory.setString(5, WORLD_NAME);
+                territory.setInt(6, loc.getBlockX());
+                territory.setInt(7, loc.getBlockY());
+                territory.setInt(8, loc.getBlockZ());
+                territory.setInt(9, claim.getRadius());
+                territory.setInt(10, claim.getTier());
+                territory.setDouble(11, random.nextDouble());
+                territory.setBoolean(12, random.nextBoolean());
+                territory.setBoolean(13, random.nextBoolean());
+                territory.setLong(14, System.currentTimeMillis());
+                territory.addBatch();
+
+                int trustCount = random.nextInt(MAX_TRUSTED + 1);
+                for (int t = 0; t < trustCount; t++) {
+                    trusted.setInt(1, id);
+                    trusted.setString(2, new UUID(SEED + 1, random.nextInt(players)).toString());
+                    trusted.addBatch();
+                }
+                int effectCount = random.nextInt(6);
+                for (int e = 0; e < effectCount; e++) {
+                    effect.setInt(1, id);
+                    effect.setString(2, EFFECTS[random.nextInt(EFFECTS.length)]);
+                    effect.setInt(3, random.nextBoolean() ? 1 : 0);
+                    effect.addBatch();
+                }
+            }
+            territory.executeBatch();
+            trusted.executeBatch();
+            effect.executeBatch();
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.Lino.territoryBeacons.benchmarks;
+
+import org.bukkit.World;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+// The index only asks a world for its UID and name, so a proxy stands in for a server.
+// Anything else fails loudly instead of returning a plausible default.
+public final class FakeWorld {
+
+    private FakeWorld() {
+    }
+
+    public static World create(String name) {
+        UUID uid = UUID.nameUUIDFromBytes(name.getBytes());
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUID":
+                    return uid;
+                case "getName":
+                    return name;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return uid.hashCode();
+                case "toString":
+                    return "FakeWorld{" + name + "}";
+                default:
+                    throw new UnsupportedOperationException("FakeWorld does not implement " + method.getName());
+            }
+        });
+    }
+}
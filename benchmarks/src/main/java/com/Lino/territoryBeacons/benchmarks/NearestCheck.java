@@ -0,0 +1,82 @@
+package com.Lino.territoryBeacons.benchmarks;
+
+import com.Lino.territoryBeacons.Territory;
+import com.Lino.territoryBeacons.util.NearbyTerritory;
+import com.Lino.territoryBeacons.util.TerritoryIndex;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Compares TerritoryIndex.nearest with a brute-force scan over every claim, for both layouts and a
+// spread of radii and limits. Distances must match position by position; which claim wins a tie
+// does not matter. Exits with 1 on the first mismatch.
+//   java -cp benchmarks/target/benchmarks.jar com.Lino.territoryBeacons.benchmarks.NearestCheck [claims] [queries]
+public final class NearestCheck {
+
+    private static final double[] RADII = {0, 16, 64, 256, 1000, 5000};
+    private static final int[] LIMITS = {1, 5, 10, 50};
+
+    private NearestCheck() {
+    }
+
+    public static void main(String[] args) {
+        int claims = args.length > 0 ? Integer.parseInt(args[0]) : 2500;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        World world = FakeWorld.create("world");
+        int checked = 0;
+
+        for (TerritoryLayout layout : TerritoryLayout.values()) {
+            List<Territory> territories = layout.generate(world, claims, 7L);
+            TerritoryIndex index = new TerritoryIndex();
+            territories.forEach(territory -> index.add(territory.getBeaconLocation(), territory));
+
+            Random random = new Random(11L);
+            int half = TerritoryLayout.halfExtent(claims) + 500;
+            for (int i = 0; i < queries; i++) {
+                double x = random.nextInt(2 * half) - half + random.nextDouble();
+                double z = random.nextInt(2 * half) - half + random.nextDouble();
+                for (double radius : RADII) {
+                    for (int limit : LIMITS) {
+                        List<NearbyTerritory> found = index.nearest(world, x, z, radius, limit);
+                        List<Double> expected = bruteForce(territories, x, z, radius, limit);
+                        if (!matches(found, expected)) {
+                            System.out.printf("MISMATCH %s at %.1f,%.1f radius=%.0f limit=%d: got %s, expected %s%n",
+                                    layout, x, z, radius, limit, distances(found), expected);
+                            System.exit(1);
+                        }
+                        checked++;
+                    }
+                }
+            }
+        }
+        System.out.println("nearest() matched the brute-force scan on " + checked + " queries over " + claims + " claims per layout.");
+    }
+
+    private static List<Double> bruteForce(List<Territory> territories, double x, double z, double radius, int limit) {
+        List<Double> distances = new ArrayList<>();
+        for (Territory territory : territories) {
+            double distance = territory.edgeDistance(x, z);
+            if (distance <= radius) {
+                distances.add(distance);
+            }
+        }
+        distances.sort(null);
+        return distances.subList(0, Math.min(limit, distances.size()));
+    }
+
+    private static boolean matches(List<NearbyTerritory> found, List<Double> expected) {
+        if (found.size() != expected.size()) return false;
+        for (int i = 0; i < found.size(); i++) {
+            if (Double.compare(found.get(i).getDistance(), expected.get(i)) != 0) return false;
+        }
+        return true;
+    }
+
+    private static List<Double> distances(List<NearbyTerritory> found) {
+        List<Double> distances = new ArrayList<>();
+        found.forEach(entry -> distances.add(entry.getDistance()));
+        return distances;
+    }
+}
@@ -0,0 +1,210 @@
+package com.Lino.territoryBeacons.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Entry point of the "perf" profile. Runs a short subset of the benchmarks and fails the build when
+// a result is worse than the committed baseline by more than the tolerance, or has no baseline:
+//   lookups   getTerritoryAt, explosion, isCloseToBeacon at 1k and 100k uniform claims
+//   database  startup, createLatency, upgradeLatency at 1k and 10k claims with 10k player rows
+// Baselines depend on the machine, so a second check needs none: per-operation cost at the large
+// size must stay within a floor of the small one. That is what catches an index accidentally going
+// O(n). The lookup floor allows 10x for 100x the claims: 100k claims no longer fit in cache, which
+// alone costs 3-4x, while an O(n) scan would cost close to 100x. Startup is expected to grow with
+// the claim count and is left out of that check.
+// System properties: perf.baseline (baseline.json), perf.tolerance (0.25), perf.updateBaseline (false)
+public final class PerfGate {
+
+    private static final String LOOKUPS = "TerritoryIndexBenchmark\\.(getTerritoryAt|explosion|isCloseToBeacon)$";
+    private static final String DATABASE = "DatabaseBenchmark\\.(startup|createLatency|upgradeLatency)$";
+    private static final String LOOKUPS_SMALL = "1000";
+    private static final String LOOKUPS_LARGE = "100000";
+    private static final String DATABASE_SMALL = "1000";
+    private static final String DATABASE_LARGE = "10000";
+    private static final Set<String> NOT_SCALED = Set.of("DatabaseBenchmark.startup");
+    private static final double LOOKUPS_SCALING_FLOOR = 0.1;
+    private static final double DATABASE_SCALING_FLOOR = 0.5;
+    private static final Pattern ENTRY = Pattern.compile(
+            "\"([^\"]+)\"\\s*:\\s*\\{\\s*\"score\"\\s*:\\s*([-+0-9.eE]+)\\s*,\\s*\"unit\"\\s*:\\s*\"([^\"]*)\"\\s*}");
+
+    private PerfGate() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path baselineFile = Paths.get(System.getProperty("perf.baseline", "baseline.json"));
+        double tolerance = Double.parseDouble(System.getProperty("perf.tolerance", "0.25"));
+        boolean update = Boolean.parseBoolean(System.getProperty("perf.updateBaseline", "false"));
+
+        List<RunResult> results = new ArrayList<>();
+        results.addAll(new Runner(options(LOOKUPS)
+                .param("territories", LOOKUPS_SMALL, LOOKUPS_LARGE)
+                .param("layout", "UNIFORM")
+                .build()).run());
+        results.addAll(new Runner(options(DATABASE)
+                .param("territories", DATABASE_SMALL, DATABASE_LARGE)
+                .param("players", "10000")
+                .build()).run());
+
+        Map<String, RunResult> current = new TreeMap<>();
+        for (RunResult result : results) {
+            current.put(key(result), result);
+        }
+
+        if (update) {
+            writeBaseline(baselineFile, current);
+            System.out.println("Wrote " + current.size() + " results to " + baselineFile.toAbsolutePath());
+            return;
+        }
+
+        List<String> failures = new ArrayList<>();
+        checkScaling(current, LOOKUPS_SMALL, LOOKUPS_LARGE, LOOKUPS_SCALING_FLOOR, failures);
+        checkScaling(current, DATABASE_SMALL, DATABASE_LARGE, DATABASE_SCALING_FLOOR, failures);
+        checkBaseline(current, readBaseline(baselineFile), tolerance, failures);
+        if (!failures.isEmpty()) {
+            System.out.println();
+            System.out.println("Performance gate failed:");
+            failures.forEach(failure -> System.out.println("  " + failure));
+            System.exit(1);
+        }
+        System.out.println("Performance gate passed.");
+    }
+
+    // Two forks with five warm-up and five measured seconds each: the JIT has settled and a
+    // single noisy fork on a busy machine cannot decide the result on its own
+    private static ChainedOptionsBuilder options(String include) {
+        return new OptionsBuilder()
+                .include(include)
+                .forks(2)
+                .warmupIterations(5)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .shouldFailOnError(true);
+    }
+
+    // Fails only when the slowdown is beyond the floor even at the favourable end of both
+    // confidence intervals, so noise alone does not trip it
+    private static void checkScaling(Map<String, RunResult> current, String smallSize, String largeSize, double floor,
+                                     List<String> failures) {
+        for (Map.Entry<String, RunResult> entry : current.entrySet()) {
+            RunResult small = entry.getValue();
+            if (NOT_SCALED.contains(methodName(small)) || !smallSize.equals(small.getParams().getParam("territories"))) continue;
+            String largeKey = entry.getKey().replace("territories=" + smallSize + "]", "territories=" + largeSize + "]");
+            RunResult large = current.get(largeKey);
+            if (large == null || large == small) continue;
+
+            double smallScore = small.getPrimaryResult().getScore();
+            double largeScore = large.getPrimaryResult().getScore();
+            double smallError = error(small);
+            double largeError = error(large);
+            boolean higherIsBetter = small.getParams().getMode() == Mode.Throughput;
+            double slowdown = higherIsBetter ? smallScore / largeScore : largeScore / smallScore;
+            double leastSlowdown = higherIsBetter
+                    ? (smallScore - smallError) / (largeScore + largeError)
+                    : (largeScore - largeError) / (smallScore + smallError);
+            System.out.printf(Locale.ROOT, "scaling %-40s %s vs %s claims: %.2fx slower (at least %.2fx)%n",
+                    methodName(small), largeSize, smallSize, slowdown, leastSlowdown);
+            if (leastSlowdown > 1 / floor) {
+                failures.add(String.format(Locale.ROOT, "%s: %.2fx slower at %s claims than at %s (limit %.1fx)",
+                        methodName(small), slowdown, largeSize, smallSize, 1 / floor));
+            }
+        }
+    }
+
+    private static double error(RunResult result) {
+        double error = result.getPrimaryResult().getScoreError();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static void checkBaseline(Map<String, RunResult> current, Map<String, Double> baseline, double tolerance, List<String> failures) {
+        for (Map.Entry<String, RunResult> entry : current.entrySet()) {
+            Double expected = baseline.get(entry.getKey());
+            if (expected == null) {
+                System.out.println("NO BASELINE " + entry.getKey());
+                failures.add(entry.getKey() + ": no baseline entry; record one with -Dperf.updateBaseline=true");
+                continue;
+            }
+            RunResult result = entry.getValue();
+            double score = result.getPrimaryResult().getScore();
+            // Throughput is better when higher; every time-based mode is better when lower. As with
+            // scaling, the favourable end of the confidence interval is what has to be worse
+            boolean higherIsBetter = result.getParams().getMode() == Mode.Throughput;
+            double change = higherIsBetter
+                    ? expected / (score + error(result)) - 1
+                    : (score - error(result)) / expected - 1;
+            System.out.printf(Locale.ROOT, "%-11s %-70s %12.3f vs %12.3f %s (%+.0f%%)%n",
+                    change > tolerance ? "REGRESSION" : "ok", entry.getKey(), score, expected,
+                    result.getPrimaryResult().getScoreUnit(), change * 100);
+            if (change > tolerance) {
+                failures.add(String.format(Locale.ROOT, "%s: %.0f%% worse than baseline (tolerance %.0f%%)",
+                        entry.getKey(), change * 100, tolerance * 100));
+            }
+        }
+    }
+
+    private static Map<String, Double> readBaseline(Path file) throws IOException {
+        Map<String, Double> baseline = new TreeMap<>();
+        if (!Files.exists(file)) return baseline;
+        Matcher matcher = ENTRY.matcher(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            baseline.put(matcher.group(1), Double.parseDouble(matcher.group(2)));
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(Path file, Map<String, RunResult> current) throws IOException {
+        StringBuilder json = new StringBuilder("{\n  \"benchmarks\": {");
+        String separator = "\n";
+        for (Map.Entry<String, RunResult> entry : current.entrySet()) {
+            json.append(separator).append(String.format(Locale.ROOT, "    \"%s\": {\"score\": %.6g, \"unit\": \"%s\"}",
+                    entry.getKey(), entry.getValue().getPrimaryResult().getScore(), entry.getValue().getPrimaryResult().getScoreUnit()));
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // e.g. TerritoryIndexBenchmark.getTerritoryAt[layout=UNIFORM,territories=1000]
+    private static String key(RunResult result) {
+        StringBuilder key = new StringBuilder(methodName(result)).append('[');
+        Collection<String> names = new TreeSet<>(result.getParams().getParamsKeys());
+        String separator = "";
+        for (String name : names) {
+            key.append(separator).append(name).append('=').append(result.getParams().getParam(name));
+            separator = ",";
+        }
+        return key.append(']').toString();
+    }
+
+    private static String methodName(RunResult result) {
+        String benchmark = result.getParams().getBenchmark();
+        return className(result) + benchmark.substring(benchmark.lastIndexOf('.'));
+    }
+
+    private static String className(RunResult result) {
+        String benchmark = result.getParams().getBenchmark();
+        String owner = benchmark.substring(0, benchmark.lastIndexOf('.'));
+        return owner.substring(owner.lastIndexOf('.') + 1);
+    }
+}
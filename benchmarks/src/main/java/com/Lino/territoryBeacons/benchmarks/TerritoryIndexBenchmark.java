@@ -0,0 +1,162 @@
+package com.Lino.territoryBeacons.benchmarks;
+
+import com.Lino.territoryBeacons.Territory;
+import com.Lino.territoryBeacons.util.TerritoryIndex;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// The lookups behind TerritoryManager. TerritoryManager itself needs a running plugin, but each of
+// these methods is a one-line delegate to the index, so the index is measured directly:
+//   getTerritoryAt          -> TerritoryIndex.getTerritoryAt
+//   isCloseToBeacon         -> TerritoryIndex.anyBeaconWithin (default minimum-beacon-distance)
+//   isCloseToOtherTerritory -> TerritoryIndex.anyReaching (tier 1 radius)
+//   getTerritoryByOwner     -> TerritoryIndex.findByOwner
+//   explosion               -> the listener's blockList().removeIf(getTerritoryAt(b) != null)
+// Half the probe points fall inside a claim and half anywhere in the populated area.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerritoryIndexBenchmark {
+
+    private static final int PROBES = 4096;
+    private static final int EXPLOSIONS = 256;
+    private static final int EXPLOSION_RADIUS = 4;
+    private static final double MINIMUM_BEACON_DISTANCE = 260;
+    private static final int NEW_CLAIM_RADIUS = TerritoryLayout.TIER_RADII[0];
+    private static final long SEED = 42L;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int territories;
+
+    @Param({"UNIFORM", "CLUSTERED"})
+    public TerritoryLayout layout;
+
+    private World world;
+    private TerritoryIndex index;
+    private double[] probeX;
+    private double[] probeY;
+    private double[] probeZ;
+    private UUID[] owners;
+    private List<List<BlockPos>> explosions;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = FakeWorld.create("world");
+        List<Territory> claims = layout.generate(world, territories, SEED);
+        index = new TerritoryIndex();
+        index.beginBulkLoad();
+        for (Territory territory : claims) {
+            index.add(territory.getBeaconLocation(), territory);
+        }
+        index.endBulkLoad();
+
+        Random random = new Random(SEED + 1);
+        int half = TerritoryLayout.halfExtent(territories);
+        probeX = new double[PROBES];
+        probeY = new double[PROBES];
+        probeZ = new double[PROBES];
+        owners = new UUID[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            if ((i & 1) == 0) {
+                Territory claim = claims.get(random.nextInt(claims.size()));
+                double reach = claim.getRadius() * 0.5;
+                probeX[i] = claim.getBeaconLocation().getX() + (random.nextDouble() * 2 - 1) * reach;
+                probeZ[i] = claim.getBeaconLocation().getZ() + (random.nextDouble() * 2 - 1) * reach;
+            } else {
+                probeX[i] = random.nextInt(2 * half) - half + 0.5;
+                probeZ[i] = random.nextInt(2 * half) - half + 0.5;
+            }
+            probeY[i] = TerritoryLayout.BEACON_Y + random.nextInt(9) - 4;
+            owners[i] = claims.get(random.nextInt(claims.size())).getOwnerUUID();
+        }
+
+        explosions = new ArrayList<>(EXPLOSIONS);
+        for (int i = 0; i < EXPLOSIONS; i++) {
+            int cx = (int) Math.floor(probeX[i]);
+            int cy = (int) probeY[i];
+            int cz = (int) Math.floor(probeZ[i]);
+            List<BlockPos> blocks = new ArrayList<>();
+            for (int dx = -EXPLOSION_RADIUS; dx <= EXPLOSION_RADIUS; dx++) {
+                for (int dy = -EXPLOSION_RADIUS; dy <= EXPLOSION_RADIUS; dy++) {
+                    for (int dz = -EXPLOSION_RADIUS; dz <= EXPLOSION_RADIUS; dz++) {
+                        if (dx * dx + dy * dy + dz * dz <= EXPLOSION_RADIUS * EXPLOSION_RADIUS) {
+                            blocks.add(new BlockPos(world, cx + dx, cy + dy, cz + dz));
+                        }
+                    }
+                }
+            }
+            explosions.add(blocks);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public Territory getTerritoryAt() {
+        int i = next();
+        return index.getTerritoryAt(world, probeX[i], probeY[i], probeZ[i]);
+    }
+
+    @Benchmark
+    public boolean isCloseToBeacon() {
+        int i = next();
+        return index.anyBeaconWithin(world, probeX[i], probeY[i], probeZ[i], MINIMUM_BEACON_DISTANCE);
+    }
+
+    @Benchmark
+    public boolean isCloseToOtherTerritory() {
+        int i = next();
+        return index.anyReaching(world, probeX[i], probeY[i], probeZ[i], NEW_CLAIM_RADIUS);
+    }
+
+    @Benchmark
+    public Territory getTerritoryByOwner() {
+        return index.findByOwner(owners[next()]);
+    }
+
+    // The copy stands in for the block list the server hands to the event
+    @Benchmark
+    public int explosion() {
+        List<BlockPos> blocks = new ArrayList<>(explosions.get(next() & (EXPLOSIONS - 1)));
+        blocks.removeIf(b -> index.getTerritoryAt(b.world, b.x, b.y, b.z) != null);
+        return blocks.size();
+    }
+
+    static final class BlockPos {
+        final World world;
+        final int x;
+        final int y;
+        final int z;
+
+        BlockPos(World world, int x, int y, int z) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.Lino.territoryBeacons.benchmarks;
+
+import com.Lino.territoryBeacons.Territory;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Deterministic claim layouts. UNIFORM spreads claims over a square sized for roughly one claim per
+// 300x300 blocks; CLUSTERED packs the same number into a few dense towns inside that square, which
+// is what busy servers look like around spawn and shopping districts.
+public enum TerritoryLayout {
+    UNIFORM,
+    CLUSTERED;
+
+    // Default tier radii from config.yml
+    static final int[] TIER_RADII = {16, 32, 48, 64, 80, 100};
+    static final int BEACON_Y = 64;
+    private static final int SPACING = 300;
+    private static final double CLUSTER_SPREAD = 600.0;
+
+    public List<Territory> generate(World world, int count, long seed) {
+        Random random = new Random(seed);
+        int half = halfExtent(count);
+        List<Territory> territories = new ArrayList<>(count);
+
+        int[][] clusters = new int[8 + count / 2000][2];
+        for (int[] cluster : clusters) {
+            cluster[0] = random.nextInt(2 * half) - half;
+            cluster[1] = random.nextInt(2 * half) - half;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int x;
+            int z;
+            int tier;
+            if (this == UNIFORM) {
+                x = random.nextInt(2 * half) - half;
+                z = random.nextInt(2 * half) - half;
+                tier = 1 + random.nextInt(TIER_RADII.length);
+            } else {
+                int[] cluster = clusters[random.nextInt(clusters.length)];
+                x = cluster[0] + (int) (random.nextGaussian() * CLUSTER_SPREAD);
+                z = cluster[1] + (int) (random.nextGaussian() * CLUSTER_SPREAD);
+                // Towns are mostly small claims
+                tier = 1 + Math.min(TIER_RADII.length - 1, (int) Math.abs(random.nextGaussian() * 1.5));
+            }
+            UUID owner = new UUID(seed, i);
+            Location beacon = new Location(world, x, BEACON_Y, z);
+            territories.add(new Territory(owner, "player" + i, beacon, TIER_RADII[tier - 1], tier));
+        }
+        return territories;
+    }
+
+    static int halfExtent(int count) {
+        return (int) Math.max(SPACING, Math.sqrt(count) * SPACING / 2);
+    }
+}
@@ -0,0 +1,294 @@
+package com.Lino.territoryBeacons.simulation;
+
+import com.Lino.territoryBeacons.Territory;
+import com.Lino.territoryBeacons.TerritoryBeacons;
+import com.Lino.territoryBeacons.managers.ConfigManager;
+import com.Lino.territoryBeacons.metrics.LatencyHistogram;
+import com.Lino.territoryBeacons.metrics.MetricFamily;
+import com.Lino.territoryBeacons.metrics.Metrics;
+import org.bukkit.ExplosionResult;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+import org.mockbukkit.mockbukkit.world.WorldMock;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+// Starts the plugin on MockBukkit, lays out claims on a grid, and drives simulated players for a
+// fixed number of ticks. No network and no real server; the SQLite file lives in MockBukkit's
+// temporary plugin folder. Options (defaults in brackets):
+//   --territories=N [5000]   --players=N [200]   --ticks=N [1200]   --warmup=N [200]   --seed=N [42]
+//   --breaks=R [0.5]  --places=R [0.5]  --interacts=R [1.0]   actions per player per second
+//   --explosions=R [0.1]     explosions per second across the server, 7x7 blocks each
+// Tick cost is main-thread wall time for the tick's simulated actions plus the scheduler tick, so
+// it includes MockBukkit's own event dispatch; allocations are the main thread's only.
+public final class LoadSimulation {
+
+    private static final String WORLD_NAME = "world";
+    private static final int EXPLOSION_RADIUS = 3;
+    private static final int SPACING_MARGIN = 40;
+    private static final int WILDERNESS_RADIUS = 64;
+    private static final Material[] INTERACT_TARGETS = {Material.CHEST, Material.OAK_DOOR, Material.LEVER,
+            Material.STONE_BUTTON, Material.FURNACE, Material.GRASS_BLOCK};
+
+    private final Map<String, String> options;
+    private final Random random;
+    private final double breakChance;
+    private final double placeChance;
+    private final double interactChance;
+    private final double explosionChance;
+    private ServerMock server;
+    private WorldMock world;
+    private TerritoryBeacons plugin;
+    private int surfaceY;
+    private final List<Territory> claims = new ArrayList<>();
+    private final List<SimulatedPlayer> players = new ArrayList<>();
+    private final Map<String, long[]> actions = new HashMap<>();
+
+    private LoadSimulation(Map<String, String> options) {
+        this.options = options;
+        this.random = new Random(longOption("seed", 42));
+        this.breakChance = doubleOption("breaks", 0.5) / 20;
+        this.placeChance = doubleOption("places", 0.5) / 20;
+        this.interactChance = doubleOption("interacts", 1.0) / 20;
+        this.explosionChance = doubleOption("explosions", 0.1) / 20;
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadSimulation(options).run();
+    }
+
+    private void run() {
+        int territoryCount = (int) longOption("territories", 5000);
+        int playerCount = (int) longOption("players", 200);
+        int ticks = (int) longOption("ticks", 1200);
+        int warmup = (int) longOption("warmup", 200);
+        if (territoryCount < 0 || playerCount < 0 || ticks < 1 || warmup < 0) {
+            throw new IllegalArgumentException("territories, players and warmup must be >= 0 and ticks >= 1");
+        }
+
+        server = MockBukkit.mock();
+        try {
+            world = server.addSimpleWorld(WORLD_NAME);
+            surfaceY = findSurface();
+            plugin = MockBukkit.load(TerritoryBeacons.class);
+            plugin.getMetrics().setEnabled(true);
+
+            long setupStart = System.nanoTime();
+            createClaims(territoryCount);
+            joinPlayers(playerCount);
+            System.out.printf(Locale.ROOT, "Set up %d claims and %d players in %.0f ms%n",
+                    claims.size(), players.size(), (System.nanoTime() - setupStart) / 1e6);
+
+            for (int tick = 0; tick < warmup; tick++) {
+                runTick();
+            }
+            plugin.getMetrics().reset();
+            actions.clear();
+
+            long[] tickNanos = new long[ticks];
+            long[] tickBytes = new long[ticks];
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            for (int tick = 0; tick < ticks; tick++) {
+                long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                runTick();
+                tickNanos[tick] = System.nanoTime() - start;
+                tickBytes[tick] = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+            }
+
+            // Disabling saves every claim and waits for the database lane, like a real shutdown
+            long shutdownStart = System.nanoTime();
+            MockBukkit.unmock();
+            server = null;
+            long shutdownNanos = System.nanoTime() - shutdownStart;
+
+            report(territoryCount, playerCount, ticks, warmup, tickNanos, tickBytes, shutdownNanos);
+        } finally {
+            if (server != null) {
+                MockBukkit.unmock();
+            }
+        }
+    }
+
+    // The mock world is flat, so one column gives the surface height everywhere
+    private int findSurface() {
+        for (int y = world.getMaxHeight() - 1; y > world.getMinHeight(); y--) {
+            if (!world.getBlockAt(0, y, 0).getType().isAir()) return y;
+        }
+        return world.getMinHeight();
+    }
+
+    private void createClaims(int count) {
+        ConfigManager config = plugin.getConfigManager();
+        int maxTier = Math.max(1, config.getMaxTiers());
+        int largestRadius = 0;
+        for (int tier = 1; tier <= maxTier; tier++) {
+            largestRadius = Math.max(largestRadius, config.getRadiusForTier(tier));
+        }
+        int spacing = Math.max(config.getMinimumBeaconDistance(), largestRadius * 2) + SPACING_MARGIN;
+        int side = (int) Math.ceil(Math.sqrt(count));
+        for (int i = 0; i < count; i++) {
+            int x = (i % side - side / 2) * spacing;
+            int z = (i / side - side / 2) * spacing;
+            Location beacon = new Location(world, x, surfaceY + 1, z);
+            world.getBlockAt(beacon).setType(Material.BEACON);
+
+            int tier = 1 + random.nextInt(maxTier);
+            UUID owner = new UUID(0L, i);
+            Territory territory = new Territory(owner, "owner" + i, beacon, config.getRadiusForTier(tier), tier);
+            plugin.getTerritoryManager().addTerritory(beacon, territory);
+            plugin.getDatabaseManager().saveTerritoryToDatabase(territory);
+            claims.add(territory);
+        }
+    }
+
+    // Player i owns claim i. Half the players roam their own claim, the rest a stranger's, so both
+    // the allowed and the denied paths of every handler get exercised. With no claims at all
+    // everyone roams the wilderness around spawn, which measures the unclaimed fast path.
+    private void joinPlayers(int count) {
+        for (int i = 0; i < count; i++) {
+            PlayerMock player = new PlayerMock(server, "owner" + i, new UUID(0L, i));
+            server.addPlayer(player);
+            Location center = new Location(world, 0, surfaceY + 1, 0);
+            int radius = WILDERNESS_RADIUS;
+            if (!claims.isEmpty()) {
+                Territory home = random.nextBoolean() && i < claims.size() ? claims.get(i) : claims.get(random.nextInt(claims.size()));
+                center = home.getBeaconLocation();
+                radius = home.getRadius();
+            }
+            SimulatedPlayer simulated = new SimulatedPlayer(player, center, radius, new Random(random.nextLong()));
+            player.teleport(simulated.position(world, surfaceY + 1));
+            players.add(simulated);
+        }
+    }
+
+    private void runTick() {
+        for (SimulatedPlayer simulated : players) {
+            PlayerMock player = simulated.getPlayer();
+            player.simulatePlayerMove(simulated.nextStep(world, surfaceY + 1));
+            count("move", false);
+
+            Location feet = player.getLocation();
+            if (random.nextDouble() < breakChance) {
+                Block block = world.getBlockAt(feet.getBlockX() + 1, surfaceY, feet.getBlockZ());
+                if (block.getType().isAir()) block.setType(Material.GRASS_BLOCK);
+                BlockBreakEvent event = player.simulateBlockBreak(block);
+                count("break", event == null || event.isCancelled());
+            }
+            if (random.nextDouble() < placeChance) {
+                Location target = new Location(world, feet.getBlockX(), surfaceY + 1, feet.getBlockZ() + 1);
+                BlockPlaceEvent event = player.simulateBlockPlace(Material.COBBLESTONE, target);
+                count("place", event == null || event.isCancelled());
+            }
+            if (random.nextDouble() < interactChance) {
+                Block block = world.getBlockAt(feet.getBlockX(), surfaceY + 1, feet.getBlockZ() - 1);
+                block.setType(INTERACT_TARGETS[random.nextInt(INTERACT_TARGETS.length)]);
+                PlayerInteractEvent event = new PlayerInteractEvent(player, Action.RIGHT_CLICK_BLOCK, null, block, BlockFace.NORTH);
+                server.getPluginManager().callEvent(event);
+                count("interact", event.useInteractedBlock() == Event.Result.DENY);
+            }
+        }
+
+        if (!players.isEmpty() && random.nextDouble() < explosionChance) {
+            explode(players.get(random.nextInt(players.size())));
+        }
+        server.getScheduler().performOneTick();
+    }
+
+    // The source entity only matters to other plugins; the listener looks at the block list
+    private void explode(SimulatedPlayer source) {
+        Location center = source.getPlayer().getLocation();
+        List<Block> blocks = new ArrayList<>();
+        for (int dx = -EXPLOSION_RADIUS; dx <= EXPLOSION_RADIUS; dx++) {
+            for (int dz = -EXPLOSION_RADIUS; dz <= EXPLOSION_RADIUS; dz++) {
+                blocks.add(world.getBlockAt(center.getBlockX() + dx, surfaceY, center.getBlockZ() + dz));
+            }
+        }
+        int before = blocks.size();
+        EntityExplodeEvent event = new EntityExplodeEvent(source.getPlayer(), center, blocks, 0.3f, ExplosionResult.DESTROY);
+        server.getPluginManager().callEvent(event);
+        count("explosion", event.blockList().size() < before);
+    }
+
+    private void count(String action, boolean denied) {
+        long[] counts = actions.computeIfAbsent(action, key -> new long[2]);
+        counts[0]++;
+        if (denied) counts[1]++;
+    }
+
+    private void report(int territoryCount, int playerCount, int ticks, int warmup, long[] tickNanos, long[] tickBytes, long shutdownNanos) {
+        Metrics metrics = plugin.getMetrics();
+        System.out.printf(Locale.ROOT, "%nTerritoryBeacons load simulation: %d players, %d claims, %d ticks after %d warm-up%n",
+                playerCount, territoryCount, ticks, warmup);
+
+        long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+        long total = Arrays.stream(tickNanos).sum();
+        System.out.printf(Locale.ROOT, "Tick cost ms:   mean %.3f  p50 %.3f  p95 %.3f  p99 %.3f  max %.3f  (%.1f%% of a 50 ms tick)%n",
+                total / 1e6 / ticks, percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.95) / 1e6,
+                percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6, total / 1e6 / ticks / 50 * 100);
+        System.out.printf(Locale.ROOT, "Allocated/tick: mean %.1f KB  max %.1f KB  (main thread)%n",
+                Arrays.stream(tickBytes).average().orElse(0) / 1024, Arrays.stream(tickBytes).max().orElse(0) / 1024.0);
+        System.out.printf(Locale.ROOT, "Shutdown save:  %.0f ms%n", shutdownNanos / 1e6);
+
+        System.out.println("\nActions (total / denied):");
+        actions.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry ->
+                System.out.printf(Locale.ROOT, "  %-10s %9d / %d%n", entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+
+        for (MetricFamily family : MetricFamily.values()) {
+            System.out.printf(Locale.ROOT, "%n%s (count, total ms, p50 / p99 / max us):%n", family.getKey());
+            metrics.getHistograms(family).stream()
+                    .filter(histogram -> histogram.getCount() > 0)
+                    .sorted(Comparator.comparingLong(LatencyHistogram::getTotalNanos).reversed())
+                    .forEach(histogram -> System.out.printf(Locale.ROOT, "  %-24s %9d %10.1f   %.1f / %.1f / %.1f%n",
+                            histogram.getLabel(), histogram.getCount(), histogram.getTotalNanos() / 1e6,
+                            histogram.percentileNanos(0.5) / 1e3, histogram.percentileNanos(0.99) / 1e3,
+                            histogram.getMaxNanos() / 1e3));
+        }
+        long lookups = metrics.getIndexHits() + metrics.getIndexMisses();
+        System.out.printf(Locale.ROOT, "%nIndex lookups: %d (%d hits, %.1f%%)%n", lookups, metrics.getIndexHits(),
+                lookups == 0 ? 0.0 : metrics.getIndexHits() * 100.0 / lookups);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(sorted.length * quantile) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private long longOption(String name, long defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    private double doubleOption(String name, double defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,56 @@
+package com.Lino.territoryBeacons.simulation;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.util.Random;
+
+// A player wandering around one claim at walking speed. The walk is allowed to drift out to 1.5x
+// the claim radius before it is steered back, so players cross the border every few hundred ticks.
+final class SimulatedPlayer {
+
+    private static final double BLOCKS_PER_TICK = 0.22;
+    private static final double TURN_JITTER = 0.35;
+    private static final double ROAM_FACTOR = 1.5;
+
+    private final PlayerMock player;
+    private final Location home;
+    private final double roamRadius;
+    private final Random random;
+    private double x;
+    private double z;
+    private double heading;
+
+    SimulatedPlayer(PlayerMock player, Location home, int radius, Random random) {
+        this.player = player;
+        this.home = home;
+        this.roamRadius = radius * ROAM_FACTOR;
+        this.random = random;
+        double angle = random.nextDouble() * Math.PI * 2;
+        double distance = random.nextDouble() * roamRadius;
+        this.x = home.getX() + Math.cos(angle) * distance;
+        this.z = home.getZ() + Math.sin(angle) * distance;
+        this.heading = random.nextDouble() * Math.PI * 2;
+    }
+
+    Location nextStep(World world, double y) {
+        heading += random.nextGaussian() * TURN_JITTER;
+        double dx = x - home.getX();
+        double dz = z - home.getZ();
+        if (dx * dx + dz * dz > roamRadius * roamRadius) {
+            heading = Math.atan2(-dz, -dx);
+        }
+        x += Math.cos(heading) * BLOCKS_PER_TICK;
+        z += Math.sin(heading) * BLOCKS_PER_TICK;
+        return new Location(world, x, y, z, (float) Math.toDegrees(heading) - 90f, 0f);
+    }
+
+    Location position(World world, double y) {
+        return new Location(world, x, y, z);
+    }
+
+    PlayerMock getPlayer() {
+        return player;
+    }
+}
@@ -0,0 +1,130 @@
+package com.Lino.territoryBeacons;
+
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class PlayerSession {
+
+    // There is no Bukkit event for permission changes, so the admin flag is re-read after this long
+    private static final long ADMIN_TTL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Player player;
+    private final UUID playerUUID;
+    private volatile Territory currentTerritory;
+    private volatile boolean admin;
+    private volatile int adminGeneration;
+    private volatile long adminCheckedAt;
+    private volatile BuildDecision currentDecision;
+    private volatile BuildDecision lastDecision;
+    private volatile Set<String> activeEffects = Collections.emptySet();
+    private volatile long effectsRefreshAt;
+
+    public PlayerSession(Player player) {
+        this.player = player;
+        this.playerUUID = player.getUniqueId();
+        refreshPermissions();
+    }
+
+    public UUID getPlayerUUID() {
+        return playerUUID;
+    }
+
+    public Territory getCurrentTerritory() {
+        return currentTerritory;
+    }
+
+    public void setCurrentTerritory(Territory territory) {
+        this.currentTerritory = territory;
+    }
+
+    public boolean canBuildInCurrentTerritory() {
+        Territory territory = currentTerritory;
+        return territory != null && canBuild(territory);
+    }
+
+    public boolean canBuild(Territory territory) {
+        int generation = checkAdmin();
+        BuildDecision decision = currentDecision;
+        if (decision != null && decision.isValidFor(territory, generation)) {
+            return decision.allowed;
+        }
+        decision = lastDecision;
+        if (decision != null && decision.isValidFor(territory, generation)) {
+            return decision.allowed;
+        }
+
+        decision = new BuildDecision(territory, territory.getVersion(), generation, admin || territory.isMember(playerUUID));
+        if (territory == currentTerritory) {
+            currentDecision = decision;
+        } else {
+            lastDecision = decision;
+        }
+        return decision.allowed;
+    }
+
+    public boolean isAdmin() {
+        checkAdmin();
+        return admin;
+    }
+
+    public void refreshPermissions() {
+        adminCheckedAt = System.nanoTime() - ADMIN_TTL_NANOS - 1;
+        checkAdmin();
+    }
+
+    private int checkAdmin() {
+        long now = System.nanoTime();
+        if (now - adminCheckedAt > ADMIN_TTL_NANOS) {
+            boolean current = player.hasPermission("territory.admin");
+            if (current != admin) {
+                admin = current;
+                adminGeneration++;
+            }
+            adminCheckedAt = now;
+        }
+        return adminGeneration;
+    }
+
+    public Set<String> getActiveEffects() {
+        return activeEffects;
+    }
+
+    public void setActiveEffects(Set<String> effects) {
+        this.activeEffects = effects.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(effects));
+    }
+
+    public long getEffectsRefreshAt() {
+        return effectsRefreshAt;
+    }
+
+    public void setEffectsRefreshAt(long tick) {
+        this.effectsRefreshAt = tick;
+    }
+
+    // Valid while the claim object, its trust version and the admin flag are unchanged;
+    // an upgrade replaces the Territory instance, so identity covers that case too
+    private static final class BuildDecision {
+        private final Territory territory;
+        private final int territoryVersion;
+        private final int adminGeneration;
+        private final boolean allowed;
+
+        private BuildDecision(Territory territory, int territoryVersion, int adminGeneration, boolean allowed) {
+            this.territory = territory;
+            this.territoryVersion = territoryVersion;
+            this.adminGeneration = adminGeneration;
+            this.allowed = allowed;
+        }
+
+        private boolean isValidFor(Territory territory, int adminGeneration) {
+            return this.territory == territory
+                    && this.territoryVersion == territory.getVersion()
+                    && this.adminGeneration == adminGeneration;
+        }
+    }
+}
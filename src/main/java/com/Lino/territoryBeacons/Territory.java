@@ -1,26 +1,29 @@
 package com.Lino.territoryBeacons;
 
 import org.bukkit.Location;
-import org.bukkit.entity.Player;
+import org.bukkit.World;
 import java.util.UUID;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Territory {
     private final UUID ownerUUID;
     private final String ownerName;
-    private String territoryName;
+    private volatile String territoryName;
     private final Location beaconLocation;
     private final int radius;
     private final int tier;
-    private double influence = 1.0;
-    private boolean pvpEnabled = true;
-    private boolean mobSpawningEnabled = true;
-    private final Set<UUID> trustedPlayers = Collections.synchronizedSet(new HashSet<>());
-    private final Set<Location> borderBlocks = Collections.synchronizedSet(new HashSet<>());
-    private final Set<String> unlockedEffects = Collections.synchronizedSet(new HashSet<>());
-    private final Set<String> activeEffects = Collections.synchronizedSet(new HashSet<>());
+    private volatile double influence = 1.0;
+    private volatile boolean pvpEnabled = true;
+    private volatile boolean mobSpawningEnabled = true;
+    // Replaced wholesale on every change so build checks read it without taking a lock
+    private volatile Set<UUID> trustedPlayers = Collections.emptySet();
+    private volatile int version;
+    private final Set<Location> borderBlocks = ConcurrentHashMap.newKeySet();
+    private final Set<String> unlockedEffects = ConcurrentHashMap.newKeySet();
+    private final Set<String> activeEffects = ConcurrentHashMap.newKeySet();
 
     public Territory(UUID ownerUUID, String ownerName, Location beaconLocation, int radius, int tier) {
         this.ownerUUID = ownerUUID;
@@ -32,11 +35,27 @@ public class Territory {
     }
 
     public boolean contains(Location location) {
-        if (!location.getWorld().equals(beaconLocation.getWorld())) {
+        return contains(location.getWorld(), location.getX(), location.getY(), location.getZ());
+    }
+
+    public boolean contains(World world, double x, double y, double z) {
+        if (!beaconLocation.getWorld().equals(world)) {
             return false;
         }
-        double distance = location.distance(beaconLocation);
-        return distance <= radius;
+        return distanceSquared(x, y, z) <= (double) radius * radius;
+    }
+
+    public double distanceSquared(double x, double y, double z) {
+        double dx = x - beaconLocation.getX();
+        double dy = y - beaconLocation.getY();
+        double dz = z - beaconLocation.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    public double edgeDistance(double x, double z) {
+        double dx = x - beaconLocation.getX();
+        double dz = z - beaconLocation.getZ();
+        return Math.max(0.0, Math.sqrt(dx * dx + dz * dz) - radius);
     }
 
     public boolean overlaps(Location otherBeacon) {
@@ -47,30 +66,36 @@ public class Territory {
         return distance < (radius + 16 + 8);
     }
 
-    public boolean canBuild(Player player) {
-        if (player.getUniqueId().equals(ownerUUID)) {
-            return true;
-        }
-        if (player.hasPermission("territory.admin")) {
-            return true;
-        }
-        return trustedPlayers.contains(player.getUniqueId());
+    public boolean isMember(UUID playerUUID) {
+        return ownerUUID.equals(playerUUID) || trustedPlayers.contains(playerUUID);
     }
 
-    public void decayInfluence(double amount) {
+    public synchronized void decayInfluence(double amount) {
         influence = Math.max(0.0, influence - amount);
     }
 
-    public void restoreInfluence(double amount) {
+    public synchronized void restoreInfluence(double amount) {
         influence = Math.min(1.0, influence + amount);
     }
 
-    public void addTrustedPlayer(UUID playerUUID) {
-        trustedPlayers.add(playerUUID);
+    public synchronized void addTrustedPlayer(UUID playerUUID) {
+        if (trustedPlayers.contains(playerUUID)) return;
+        Set<UUID> updated = new HashSet<>(trustedPlayers);
+        updated.add(playerUUID);
+        trustedPlayers = Collections.unmodifiableSet(updated);
+        version++;
+    }
+
+    public synchronized void removeTrustedPlayer(UUID playerUUID) {
+        if (!trustedPlayers.contains(playerUUID)) return;
+        Set<UUID> updated = new HashSet<>(trustedPlayers);
+        updated.remove(playerUUID);
+        trustedPlayers = Collections.unmodifiableSet(updated);
+        version++;
     }
 
-    public void removeTrustedPlayer(UUID playerUUID) {
-        trustedPlayers.remove(playerUUID);
+    public int getVersion() {
+        return version;
     }
 
     public boolean isTrusted(UUID playerUUID) {
@@ -113,6 +138,10 @@ public class Territory {
         return beaconLocation.clone();
     }
 
+    public World getWorld() {
+        return beaconLocation.getWorld();
+    }
+
     public int getRadius() {
         return radius;
     }
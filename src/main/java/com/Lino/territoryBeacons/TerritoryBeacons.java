@@ -4,6 +4,13 @@ import com.Lino.territoryBeacons.commands.TerritoryCommand;
 import com.Lino.territoryBeacons.gui.TerritoryGUI;
 import com.Lino.territoryBeacons.listeners.TerritoryListener;
 import com.Lino.territoryBeacons.managers.*;
+import com.Lino.territoryBeacons.metrics.Metrics;
+import com.Lino.territoryBeacons.metrics.TimedListeners;
+import com.Lino.territoryBeacons.tasks.BukkitPluginScheduler;
+import com.Lino.territoryBeacons.tasks.FoliaPluginScheduler;
+import com.Lino.territoryBeacons.tasks.IoExecutor;
+import com.Lino.territoryBeacons.tasks.IoLane;
+import com.Lino.territoryBeacons.tasks.PluginScheduler;
 import com.Lino.territoryBeacons.tasks.PluginTaskManager;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -12,24 +19,34 @@ public class TerritoryBeacons extends JavaPlugin {
     private ConfigManager configManager;
     private DatabaseManager databaseManager;
     private PlayerManager playerManager;
+    private EffectManager effectManager;
     private TerritoryManager territoryManager;
     private EconomyManager economyManager;
     private PluginTaskManager taskManager;
+    private PluginScheduler pluginScheduler;
+    private IoExecutor ioExecutor;
     private TerritoryGUI territoryGUI;
     private Pl3xMapManager pl3xMapManager;
     private MessageManager messageManager;
+    private final Metrics metrics = new Metrics();
 
     @Override
     public void onEnable() {
+        this.pluginScheduler = FoliaPluginScheduler.isSupported() ? new FoliaPluginScheduler(this) : new BukkitPluginScheduler(this);
+        this.ioExecutor = new IoExecutor(getLogger());
         this.messageManager = new MessageManager(this);
         this.configManager = new ConfigManager(this);
         this.databaseManager = new DatabaseManager(this);
         this.playerManager = new PlayerManager(this);
+        this.effectManager = new EffectManager(this);
         this.territoryManager = new TerritoryManager(this);
         this.economyManager = new EconomyManager(this);
         this.territoryGUI = new TerritoryGUI(this);
 
-        databaseManager.initDatabase();
+        if (!databaseManager.initDatabase()) {
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
         territoryManager.loadTerritories();
         playerManager.loadPlayerData();
 
@@ -40,7 +57,7 @@ public class TerritoryBeacons extends JavaPlugin {
             this.pl3xMapManager = new Pl3xMapManager(this);
         }
 
-        getServer().getPluginManager().registerEvents(new TerritoryListener(this), this);
+        TimedListeners.register(this, new TerritoryListener(this), metrics);
         getCommand("territory").setExecutor(new TerritoryCommand(this));
         getCommand("territory").setTabCompleter(new TerritoryCommand(this));
 
@@ -52,12 +69,20 @@ public class TerritoryBeacons extends JavaPlugin {
         if (taskManager != null) {
             taskManager.cancelAllTasks();
         }
+        if (effectManager != null) {
+            effectManager.clearAllEffects();
+        }
         if (territoryManager != null) {
             territoryManager.saveAndClearTerritories();
         }
         if (playerManager != null) {
             playerManager.saveAndClearPlayerData();
         }
+        // Every queued database write and refund finishes before the connection closes, however
+        // long that takes; map and avatar work is dropped
+        if (ioExecutor != null) {
+            ioExecutor.shutdown(IoLane.DATABASE, IoLane.ECONOMY);
+        }
         if (databaseManager != null) {
             databaseManager.closeConnection();
         }
@@ -84,6 +109,26 @@ public class TerritoryBeacons extends JavaPlugin {
         return playerManager;
     }
 
+    public IoExecutor getIoExecutor() {
+        return ioExecutor;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public PluginScheduler getPluginScheduler() {
+        return pluginScheduler;
+    }
+
+    public PluginTaskManager getTaskManager() {
+        return taskManager;
+    }
+
+    public EffectManager getEffectManager() {
+        return effectManager;
+    }
+
     public TerritoryManager getTerritoryManager() {
         return territoryManager;
     }
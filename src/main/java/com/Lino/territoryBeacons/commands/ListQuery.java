@@ -0,0 +1,88 @@
+package com.Lino.territoryBeacons.commands;
+
+import com.Lino.territoryBeacons.util.TerritorySnapshot;
+
+import java.util.Locale;
+
+public final class ListQuery {
+
+    public enum Sort {
+        TIER, INFLUENCE, DISTANCE, OWNER
+    }
+
+    private final int page;
+    private final Sort sort;
+    private final String world;
+    private final String owner;
+    private final boolean decayingOnly;
+
+    private ListQuery(int page, Sort sort, String world, String owner, boolean decayingOnly) {
+        this.page = page;
+        this.sort = sort;
+        this.world = world;
+        this.owner = owner;
+        this.decayingOnly = decayingOnly;
+    }
+
+    // A single bare word that is not a page number or a filter keeps the old "/t list <player>" meaning
+    public static boolean isPlayerLookup(String arg) {
+        return !isInteger(arg) && arg.indexOf(':') < 0 && !arg.equalsIgnoreCase("decaying");
+    }
+
+    public static ListQuery parse(String[] args) {
+        int page = 1;
+        Sort sort = Sort.TIER;
+        String world = null;
+        String owner = null;
+        boolean decayingOnly = false;
+
+        for (String arg : args) {
+            String lower = arg.toLowerCase(Locale.ROOT);
+            if (isInteger(arg)) {
+                page = Math.max(1, Integer.parseInt(arg));
+            } else if (lower.equals("decaying")) {
+                decayingOnly = true;
+            } else if (lower.startsWith("sort:")) {
+                try {
+                    sort = Sort.valueOf(lower.substring(5).toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            } else if (lower.startsWith("world:") && lower.length() > 6) {
+                world = arg.substring(6);
+            } else if (lower.startsWith("owner:") && lower.length() > 6) {
+                owner = arg.substring(6);
+            } else {
+                return null;
+            }
+        }
+        return new ListQuery(page, sort, world, owner, decayingOnly);
+    }
+
+    private static boolean isInteger(String arg) {
+        if (arg.isEmpty() || arg.length() > 9) return false;
+        for (int i = 0; i < arg.length(); i++) {
+            if (!Character.isDigit(arg.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    public boolean matches(TerritorySnapshot territory) {
+        if (world != null && !territory.getWorldName().equalsIgnoreCase(world)) return false;
+        if (owner != null && !territory.getOwnerName().equalsIgnoreCase(owner)) return false;
+        return !decayingOnly || territory.isDecaying();
+    }
+
+    public String getViewKey() {
+        return sort + "|" + (world == null ? "" : world.toLowerCase(Locale.ROOT)) + "|"
+                + (owner == null ? "" : owner.toLowerCase(Locale.ROOT)) + "|" + decayingOnly;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+}
@@ -2,11 +2,18 @@ package com.Lino.territoryBeacons.commands;
 
 import com.Lino.territoryBeacons.Territory;
 import com.Lino.territoryBeacons.TerritoryBeacons;
+import com.Lino.territoryBeacons.managers.ConfigSnapshot;
 import com.Lino.territoryBeacons.managers.MessageManager;
 import com.Lino.territoryBeacons.managers.TerritoryManager;
+import com.Lino.territoryBeacons.metrics.LatencyHistogram;
+import com.Lino.territoryBeacons.metrics.MetricFamily;
+import com.Lino.territoryBeacons.metrics.Metrics;
+import com.Lino.territoryBeacons.tasks.IoExecutor;
+import com.Lino.territoryBeacons.tasks.SlicedJob;
+import com.Lino.territoryBeacons.tasks.TickScheduler;
+import com.Lino.territoryBeacons.util.NearbyTerritory;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -15,21 +22,32 @@ import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class TerritoryCommand implements CommandExecutor, TabCompleter {
 
+    private static final int DEFAULT_NEAR_RADIUS = 256;
+    private static final int MAX_NEAR_RADIUS = 5000;
+    private static final int DEFAULT_NEAR_LIMIT = 10;
+    private static final int MAX_NEAR_LIMIT = 50;
+    private static final int MAX_TIMING_LINES = 15;
+
     private final TerritoryBeacons plugin;
     private final TerritoryManager territoryManager;
     private final MessageManager messageManager;
+    private final TerritoryListView listView;
 
     public TerritoryCommand(TerritoryBeacons plugin) {
         this.plugin = plugin;
         this.territoryManager = plugin.getTerritoryManager();
         this.messageManager = plugin.getMessageManager();
+        this.listView = new TerritoryListView(plugin);
     }
 
     @Override
@@ -65,15 +83,22 @@ public class TerritoryCommand implements CommandExecutor, TabCompleter {
                 }
                 break;
             case "list":
-                if (args.length > 1) {
+                if (args.length == 2 && ListQuery.isPlayerLookup(args[1])) {
                     listPlayerTerritories(player, args[1]);
                 } else {
-                    listAllTerritories(player);
+                    listTerritories(player, Arrays.copyOfRange(args, 1, args.length));
                 }
                 break;
             case "trusted":
                 showTrustedPlayers(player);
                 break;
+            case "near":
+                if (!player.hasPermission("territory.near")) {
+                    player.sendMessage(messageManager.get("no-permission"));
+                    return true;
+                }
+                showNearbyTerritories(player, args);
+                break;
             case "setname":
                 if (!player.hasPermission("territory.setname")) {
                     player.sendMessage(messageManager.get("no-permission"));
@@ -85,11 +110,36 @@ public class TerritoryCommand implements CommandExecutor, TabCompleter {
                     setTerritoryName(player, String.join(" ", Arrays.copyOfRange(args, 1, args.length)));
                 }
                 break;
+            case "verify":
+                if (player.hasPermission("territory.admin")) {
+                    verifyTerritoryCounts(player);
+                } else {
+                    player.sendMessage(messageManager.get("no-permission"));
+                }
+                break;
+            case "debug":
+                if (!player.hasPermission("territory.admin")) {
+                    player.sendMessage(messageManager.get("no-permission"));
+                } else if (args.length >= 2 && args[1].equalsIgnoreCase("timings")) {
+                    showTimings(player, args.length >= 3 ? MetricFamily.fromKey(args[2]) : null);
+                } else {
+                    showSchedulerStats(player);
+                }
+                break;
             case "reload":
                 if (player.hasPermission("territory.admin")) {
-                    plugin.getConfigManager().loadConfigValues();
+                    ConfigSnapshot previous = plugin.getConfigManager().getSnapshot();
+                    if (!plugin.getConfigManager().loadConfigValues()) {
+                        player.sendMessage(messageManager.get("reload-failed"));
+                        break;
+                    }
                     plugin.getMessageManager().loadMessages();
+                    plugin.getTerritoryGUI().clearItemCache();
                     player.sendMessage(messageManager.get("reload"));
+                    if (!previous.hasSameRadii(plugin.getConfigManager().getSnapshot())) {
+                        int resizing = plugin.getTerritoryManager().queueRadiusChanges();
+                        player.sendMessage(messageManager.get("reload-resizing", "%count%", String.valueOf(resizing)));
+                    }
                 } else {
                     player.sendMessage(messageManager.get("no-permission"));
                 }
@@ -114,7 +164,12 @@ public class TerritoryCommand implements CommandExecutor, TabCompleter {
         if (player.hasPermission("territory.setname")) {
             player.sendMessage(messageManager.get("help-setname"));
         }
+        if (player.hasPermission("territory.near")) {
+            player.sendMessage(messageManager.get("help-near"));
+        }
         if (player.hasPermission("territory.admin")) {
+            player.sendMessage(messageManager.get("help-verify"));
+            player.sendMessage(messageManager.get("help-debug"));
             player.sendMessage(messageManager.get("help-reload"));
         }
         player.sendMessage(messageManager.get("help-footer"));
@@ -154,6 +209,7 @@ public class TerritoryCommand implements CommandExecutor, TabCompleter {
             return;
         }
         territory.addTrustedPlayer(target.getUniqueId());
+        plugin.getPluginScheduler().executeFor(target, () -> plugin.getEffectManager().updateEffects(target));
         player.sendMessage(messageManager.get("player-trusted", "%trusted_player%", target.getName()));
         target.sendMessage(messageManager.get("player-is-now-trusted", "%owner%", player.getName()));
     }
@@ -164,19 +220,22 @@ public class TerritoryCommand implements CommandExecutor, TabCompleter {
             player.sendMessage(messageManager.get("not-owner-of-territory"));
             return;
         }
-        OfflinePlayer target = Arrays.stream(Bukkit.getOfflinePlayers()).filter(p -> p.getName().equalsIgnoreCase(targetName)).findFirst().orElse(null);
-        if (target == null) {
+        UUID targetUUID = plugin.getPlayerManager().getPlayerUUID(targetName);
+        if (targetUUID == null) {
             player.sendMessage(messageManager.get("player-not-found"));
             return;
         }
-        if (!territory.isTrusted(target.getUniqueId())) {
-            player.sendMessage(messageManager.get("player-not-trusted", "%trusted_player%", target.getName()));
+        String targetDisplayName = plugin.getPlayerManager().getPlayerName(targetUUID);
+        if (!territory.isTrusted(targetUUID)) {
+            player.sendMessage(messageManager.get("player-not-trusted", "%trusted_player%", targetDisplayName));
             return;
         }
-        territory.removeTrustedPlayer(target.getUniqueId());
-        player.sendMessage(messageManager.get("player-untrusted", "%trusted_player%", target.getName()));
-        if (target.isOnline()) {
-            target.getPlayer().sendMessage(messageManager.get("player-is-no-longer-trusted", "%owner%", player.getName()));
+        territory.removeTrustedPlayer(targetUUID);
+        player.sendMessage(messageManager.get("player-untrusted", "%trusted_player%", targetDisplayName));
+        Player target = Bukkit.getPlayer(targetUUID);
+        if (target != null) {
+            plugin.getPluginScheduler().executeFor(target, () -> plugin.getEffectManager().updateEffects(target));
+            target.sendMessage(messageManager.get("player-is-no-longer-trusted", "%owner%", player.getName()));
         }
     }
 
@@ -193,10 +252,126 @@ public class TerritoryCommand implements CommandExecutor, TabCompleter {
         }
         player.sendMessage(messageManager.get("gui-trusted-button"));
         for (UUID uuid : trusted) {
-            OfflinePlayer trustedPlayer = Bukkit.getOfflinePlayer(uuid);
-            String status = trustedPlayer.isOnline() ? " (Online)" : " (Offline)";
-            player.sendMessage("- " + trustedPlayer.getName() + status);
+            String name = plugin.getPlayerManager().getPlayerName(uuid);
+            String status = Bukkit.getPlayer(uuid) != null ? " (Online)" : " (Offline)";
+            player.sendMessage("- " + (name != null ? name : uuid.toString()) + status);
+        }
+    }
+
+    private void showNearbyTerritories(Player player, String[] args) {
+        int radius = DEFAULT_NEAR_RADIUS;
+        int limit = DEFAULT_NEAR_LIMIT;
+        try {
+            if (args.length > 1) radius = Integer.parseInt(args[1]);
+            if (args.length > 2) limit = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            player.sendMessage(messageManager.get("usage-near"));
+            return;
+        }
+        radius = Math.max(1, Math.min(MAX_NEAR_RADIUS, radius));
+        limit = Math.max(1, Math.min(MAX_NEAR_LIMIT, limit));
+
+        List<NearbyTerritory> nearby = territoryManager.getNearestTerritories(player.getLocation(), radius, limit);
+        if (nearby.isEmpty()) {
+            player.sendMessage(messageManager.get("near-none", "%radius%", String.valueOf(radius)));
+            return;
+        }
+        player.sendMessage(messageManager.get("near-header", "%radius%", String.valueOf(radius), "%count%", String.valueOf(nearby.size())));
+        for (NearbyTerritory entry : nearby) {
+            Territory territory = entry.getTerritory();
+            Location loc = territory.getBeaconLocation();
+            player.sendMessage(messageManager.get(entry.getDistance() <= 0 ? "near-entry-inside" : "near-entry",
+                    "%name%", territory.getTerritoryName(),
+                    "%owner%", territory.getOwnerName(),
+                    "%x%", String.valueOf(loc.getBlockX()),
+                    "%y%", String.valueOf(loc.getBlockY()),
+                    "%z%", String.valueOf(loc.getBlockZ()),
+                    "%distance%", String.valueOf((long) Math.ceil(entry.getDistance()))));
+        }
+    }
+
+    private void verifyTerritoryCounts(Player player) {
+        Map<UUID, int[]> drift = plugin.getPlayerManager().verifyTerritoryCounts();
+        if (drift.isEmpty()) {
+            player.sendMessage(messageManager.get("verify-counts-ok", "%territories%", String.valueOf(territoryManager.getAllTerritories().size())));
+            return;
+        }
+        player.sendMessage(messageManager.get("verify-counts-drift", "%count%", String.valueOf(drift.size())));
+        for (Map.Entry<UUID, int[]> entry : drift.entrySet()) {
+            String name = plugin.getPlayerManager().getPlayerName(entry.getKey());
+            player.sendMessage(messageManager.get("verify-counts-entry",
+                    "%player%", name != null ? name : entry.getKey().toString(),
+                    "%stored%", String.valueOf(entry.getValue()[0]),
+                    "%actual%", String.valueOf(entry.getValue()[1])));
+        }
+        plugin.getLogger().warning("Corrected " + drift.size() + " drifted territory counters.");
+    }
+
+    private void showSchedulerStats(Player player) {
+        TickScheduler scheduler = plugin.getTaskManager().getTickScheduler();
+        player.sendMessage(messageManager.get("debug-header",
+                "%budget%", String.format("%.2f", plugin.getConfigManager().getTickBudgetMillis()),
+                "%tick%", String.valueOf(scheduler.getCurrentTick())));
+        for (SlicedJob<?> job : scheduler.getJobs()) {
+            player.sendMessage(messageManager.get("debug-job",
+                    "%job%", job.getName(),
+                    "%budget%", String.format("%.2f", job.getBudgetMillis()),
+                    "%backlog%", String.valueOf(job.getBacklog()),
+                    "%overruns%", String.valueOf(job.getOverruns()),
+                    "%deferrals%", String.valueOf(job.getDeferrals()),
+                    "%passes%", String.valueOf(job.getPasses()),
+                    "%pass_ticks%", String.valueOf(job.getLastPassTicks()),
+                    "%last_ms%", String.format("%.3f", job.getLastSliceNanos() / 1_000_000.0),
+                    "%max_ms%", String.format("%.3f", job.getMaxSliceNanos() / 1_000_000.0)));
+        }
+
+        IoExecutor io = plugin.getIoExecutor();
+        player.sendMessage(messageManager.get("debug-io-header", "%threads%", io.isUsingVirtualThreads() ? "virtual" : "platform"));
+        for (IoExecutor.Lane lane : io.getLanes()) {
+            player.sendMessage(messageManager.get("debug-io-lane",
+                    "%lane%", lane.getType().name().toLowerCase(Locale.ROOT),
+                    "%limit%", String.valueOf(lane.getType().getConcurrency()),
+                    "%queued%", String.valueOf(lane.getQueued()),
+                    "%peak%", String.valueOf(lane.getPeakQueued()),
+                    "%running%", String.valueOf(lane.getRunning()),
+                    "%completed%", String.valueOf(lane.getCompleted()),
+                    "%failed%", String.valueOf(lane.getFailed()),
+                    "%avg_wait%", String.format("%.1f", lane.getAverageWaitMillis()),
+                    "%max_wait%", String.format("%.1f", lane.getMaxWaitMillis())));
+        }
+    }
+
+    private void showTimings(Player player, MetricFamily only) {
+        Metrics metrics = plugin.getMetrics();
+        if (!metrics.isEnabled()) {
+            player.sendMessage(messageManager.get("debug-timings-disabled"));
+            return;
         }
+        for (MetricFamily family : MetricFamily.values()) {
+            if (only != null && family != only) continue;
+            List<LatencyHistogram> busiest = metrics.getHistograms(family).stream()
+                    .filter(histogram -> histogram.getCount() > 0)
+                    .sorted(Comparator.comparingLong(LatencyHistogram::getTotalNanos).reversed())
+                    .limit(MAX_TIMING_LINES)
+                    .collect(Collectors.toList());
+            player.sendMessage(messageManager.get("debug-timings-header", "%family%", family.getKey()));
+            for (LatencyHistogram histogram : busiest) {
+                player.sendMessage(messageManager.get("debug-timing-line",
+                        "%name%", histogram.getLabel(),
+                        "%count%", String.valueOf(histogram.getCount()),
+                        "%total_ms%", String.format("%.1f", histogram.getTotalNanos() / 1_000_000.0),
+                        "%p50_ms%", String.format("%.3f", histogram.percentileNanos(0.5) / 1_000_000.0),
+                        "%p99_ms%", String.format("%.3f", histogram.percentileNanos(0.99) / 1_000_000.0),
+                        "%max_ms%", String.format("%.3f", histogram.getMaxNanos() / 1_000_000.0)));
+            }
+        }
+        long hits = metrics.getIndexHits();
+        long misses = metrics.getIndexMisses();
+        long lookups = hits + misses;
+        player.sendMessage(messageManager.get("debug-index-line",
+                "%hits%", String.valueOf(hits),
+                "%misses%", String.valueOf(misses),
+                "%hit_rate%", String.format("%.1f", lookups == 0 ? 0.0 : hits * 100.0 / lookups)));
     }
 
     private void setTerritoryName(Player player, String name) {
@@ -206,35 +381,43 @@ public class TerritoryCommand implements CommandExecutor, TabCompleter {
             return;
         }
         territory.setTerritoryName(name);
+        territoryManager.markTerritoriesChanged();
         if (plugin.getPl3xMapManager() != null) {
             plugin.getPl3xMapManager().addOrUpdateTerritoryMarker(territory);
         }
         player.sendMessage(messageManager.get("territory-name-set", "%name%", name));
     }
 
-    private void listAllTerritories(Player player) {
+    private void listTerritories(Player player, String[] args) {
+        ListQuery query = ListQuery.parse(args);
+        if (query == null) {
+            player.sendMessage(messageManager.get("usage-list"));
+            return;
+        }
         if (territoryManager.getAllTerritories().isEmpty()) {
             player.sendMessage(messageManager.get("no-active-territories"));
             return;
         }
-        player.sendMessage(messageManager.get("list-header"));
-        for (Territory territory : territoryManager.getAllTerritories()) {
-            Location loc = territory.getBeaconLocation();
-            String coords = String.format("(%d, %d, %d)", loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
-            String influence = String.format("%.0f%%", territory.getInfluence() * 100);
-            player.sendMessage(territory.getTerritoryName() + " - " + coords + " - Influence: " + influence);
-        }
+        TerritoryListView.SnapshotRequest request = listView.requestSnapshot();
+        Location loc = player.getLocation();
+        String worldName = loc.getWorld().getName();
+        double x = loc.getX();
+        double z = loc.getZ();
+        plugin.getPluginScheduler().runAsync(() -> {
+            List<String> lines = listView.render(listView.getSnapshot(request), query, worldName, x, z);
+            plugin.getPluginScheduler().runFor(player, () -> lines.forEach(player::sendMessage));
+        });
     }
 
     private void listPlayerTerritories(Player player, String targetName) {
-        OfflinePlayer target = Arrays.stream(Bukkit.getOfflinePlayers()).filter(p -> p.getName().equalsIgnoreCase(targetName)).findFirst().orElse(null);
-        if (target == null) {
+        UUID targetUUID = plugin.getPlayerManager().getPlayerUUID(targetName);
+        if (targetUUID == null) {
             player.sendMessage(messageManager.get("player-not-found"));
             return;
         }
-        Territory territory = territoryManager.getTerritoryByOwner(target.getUniqueId());
+        Territory territory = territoryManager.getTerritoryByOwner(targetUUID);
         if (territory == null) {
-            player.sendMessage(messageManager.get("target-has-no-territory", "%player%", target.getName()));
+            player.sendMessage(messageManager.get("target-has-no-territory", "%player%", plugin.getPlayerManager().getPlayerName(targetUUID)));
             return;
         }
         Location loc = territory.getBeaconLocation();
@@ -252,15 +435,80 @@ public class TerritoryCommand implements CommandExecutor, TabCompleter {
             List<String> subcommands = new ArrayList<>(Arrays.asList("info", "trust", "untrust", "trusted", "list", "help"));
             if (sender.hasPermission("territory.admin")) {
                 subcommands.add("reload");
+                subcommands.add("verify");
+                subcommands.add("debug");
             }
             if (sender.hasPermission("territory.setname")) {
                 subcommands.add("setname");
             }
+            if (sender.hasPermission("territory.near")) {
+                subcommands.add("near");
+            }
             return subcommands.stream()
                     .filter(s -> s.startsWith(args[0].toLowerCase()))
                     .collect(Collectors.toList());
         }
-        if (args.length == 2 && (args[0].equalsIgnoreCase("trust") || args[0].equalsIgnoreCase("untrust") || args[0].equalsIgnoreCase("list"))) {
+        if (args[0].equalsIgnoreCase("debug") && sender.hasPermission("territory.admin") && (args.length == 2 || args.length == 3)) {
+            List<String> options = new ArrayList<>();
+            if (args.length == 2) {
+                options.add("timings");
+            } else if (args[1].equalsIgnoreCase("timings")) {
+                Arrays.stream(MetricFamily.values()).forEach(family -> options.add(family.getKey()));
+            }
+            return options.stream()
+                    .filter(option -> option.startsWith(args[args.length - 1].toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("untrust") && sender instanceof Player) {
+            Territory territory = territoryManager.getTerritoryByOwner(((Player) sender).getUniqueId());
+            if (territory == null) {
+                return new ArrayList<>();
+            }
+            return territory.getTrustedPlayers().stream()
+                    .map(uuid -> plugin.getPlayerManager().getPlayerName(uuid))
+                    .filter(name -> name != null && name.toLowerCase().startsWith(args[1].toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+        if (args[0].equalsIgnoreCase("near") && sender.hasPermission("territory.near") && sender instanceof Player
+                && (args.length == 2 || args.length == 3)) {
+            // The radius that reaches each nearby claim, then how many claims the typed radius finds
+            Location loc = ((Player) sender).getLocation();
+            List<String> options = new ArrayList<>();
+            if (args.length == 2) {
+                territoryManager.getNearestTerritories(loc, MAX_NEAR_RADIUS, DEFAULT_NEAR_LIMIT).stream()
+                        .map(entry -> String.valueOf(Math.max(1, (long) Math.ceil(entry.getDistance()))))
+                        .distinct()
+                        .forEach(options::add);
+            } else {
+                try {
+                    int radius = Math.max(1, Math.min(MAX_NEAR_RADIUS, Integer.parseInt(args[1])));
+                    int found = territoryManager.getNearestTerritories(loc, radius, MAX_NEAR_LIMIT).size();
+                    if (found > 0) {
+                        options.add(String.valueOf(found));
+                    }
+                } catch (NumberFormatException ignored) {
+                }
+            }
+            return options.stream()
+                    .filter(option -> option.startsWith(args[args.length - 1]))
+                    .collect(Collectors.toList());
+        }
+        if (args.length >= 2 && args[0].equalsIgnoreCase("list")) {
+            String prefix = args[args.length - 1].toLowerCase();
+            List<String> options = new ArrayList<>(Arrays.asList("sort:tier", "sort:influence", "sort:distance", "sort:owner", "decaying"));
+            Bukkit.getWorlds().forEach(world -> options.add("world:" + world.getName()));
+            if (sender instanceof Player) {
+                territoryManager.getNearestTerritories(((Player) sender).getLocation(), DEFAULT_NEAR_RADIUS, DEFAULT_NEAR_LIMIT)
+                        .forEach(entry -> options.add("owner:" + entry.getTerritory().getOwnerName()));
+            }
+            if (args.length == 2) {
+                Bukkit.getOnlinePlayers().forEach(p -> options.add(p.getName()));
+            }
+            return options.stream()
+                    .filter(option -> option.toLowerCase().startsWith(prefix))
+                    .collect(Collectors.toList());
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("trust")) {
             return Bukkit.getOnlinePlayers().stream()
                     .map(Player::getName)
                     .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
@@ -0,0 +1,173 @@
+package com.Lino.territoryBeacons.commands;
+
+import com.Lino.territoryBeacons.Territory;
+import com.Lino.territoryBeacons.TerritoryBeacons;
+import com.Lino.territoryBeacons.managers.MessageManager;
+import com.Lino.territoryBeacons.util.TerritorySnapshot;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class TerritoryListView {
+
+    private static final int PAGE_SIZE = 10;
+    // Decay status drifts with time alone, so an unchanged territory set still refreshes now and then
+    private static final long SNAPSHOT_TTL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final TerritoryBeacons plugin;
+    private final MessageManager messageManager;
+    private volatile Snapshot current;
+
+    public TerritoryListView(TerritoryBeacons plugin) {
+        this.plugin = plugin;
+        this.messageManager = plugin.getMessageManager();
+    }
+
+    // Main-thread half: copies the claim list and who is online. The decay pass, with its
+    // last-seen lookup per claim, is left to getSnapshot on the async thread.
+    public SnapshotRequest requestSnapshot() {
+        long version = plugin.getTerritoryManager().getVersion();
+        long now = System.currentTimeMillis();
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.version == version && now - snapshot.createdAt < SNAPSHOT_TTL_MILLIS) {
+            return new SnapshotRequest(snapshot, null, null, version, now);
+        }
+        Set<UUID> online = new HashSet<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            online.add(player.getUniqueId());
+        }
+        List<Territory> territories = new ArrayList<>(plugin.getTerritoryManager().getAllTerritories());
+        return new SnapshotRequest(null, territories, online, version, now);
+    }
+
+    public Snapshot getSnapshot(SnapshotRequest request) {
+        if (request.cached != null) {
+            return request.cached;
+        }
+
+        long decayStartMillis = TimeUnit.HOURS.toMillis(plugin.getConfigManager().getDecayTime());
+        List<TerritorySnapshot> entries = new ArrayList<>(request.territories.size());
+        for (Territory territory : request.territories) {
+            UUID ownerUUID = territory.getOwnerUUID();
+            boolean decaying = !request.online.contains(ownerUUID)
+                    && request.createdAt - plugin.getPlayerManager().getPlayerLastSeen(ownerUUID) >= decayStartMillis;
+            entries.add(new TerritorySnapshot(territory, decaying));
+        }
+        Snapshot snapshot = new Snapshot(Collections.unmodifiableList(entries), request.version, request.createdAt);
+        // Two lists built at once may finish out of order; keep the newer one
+        Snapshot previous = current;
+        if (previous == null || previous.createdAt <= snapshot.createdAt) {
+            current = snapshot;
+        }
+        return snapshot;
+    }
+
+    public List<String> render(Snapshot snapshot, ListQuery query, String worldName, double x, double z) {
+        List<TerritorySnapshot> view = snapshot.views.computeIfAbsent(query.getViewKey(), key -> sortedView(snapshot.entries, query));
+        if (query.getSort() == ListQuery.Sort.DISTANCE) {
+            view = new ArrayList<>(view);
+            view.sort(distanceOrder(worldName, x, z));
+        }
+
+        List<String> lines = new ArrayList<>();
+        if (view.isEmpty()) {
+            lines.add(messageManager.get("list-no-results"));
+            return lines;
+        }
+
+        int pages = (view.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+        int page = Math.min(query.getPage(), pages);
+        lines.add(messageManager.get("list-header"));
+        for (int i = (page - 1) * PAGE_SIZE; i < Math.min(view.size(), page * PAGE_SIZE); i++) {
+            TerritorySnapshot territory = view.get(i);
+            String[] placeholders = {
+                    "%name%", territory.getTerritoryName(),
+                    "%owner%", territory.getOwnerName(),
+                    "%world%", territory.getWorldName(),
+                    "%x%", String.valueOf(territory.getX()),
+                    "%y%", String.valueOf(territory.getY()),
+                    "%z%", String.valueOf(territory.getZ()),
+                    "%tier%", String.valueOf(territory.getTier()),
+                    "%influence%", String.format("%.0f", territory.getInfluence() * 100),
+                    "%distance%", territory.getWorldName().equals(worldName)
+                            ? String.valueOf((long) Math.sqrt(territory.distanceSquared(x, z))) : "-"
+            };
+            lines.add(messageManager.get(territory.isDecaying() ? "list-entry-decaying" : "list-entry", placeholders));
+        }
+        lines.add(messageManager.get("list-page",
+                "%page%", String.valueOf(page),
+                "%pages%", String.valueOf(pages),
+                "%total%", String.valueOf(view.size())));
+        return lines;
+    }
+
+    private static List<TerritorySnapshot> sortedView(List<TerritorySnapshot> entries, ListQuery query) {
+        List<TerritorySnapshot> view = new ArrayList<>();
+        for (TerritorySnapshot territory : entries) {
+            if (query.matches(territory)) {
+                view.add(territory);
+            }
+        }
+        switch (query.getSort()) {
+            case TIER:
+                view.sort(Comparator.comparingInt(TerritorySnapshot::getTier).reversed()
+                        .thenComparing(Comparator.comparingDouble(TerritorySnapshot::getInfluence).reversed()));
+                break;
+            case INFLUENCE:
+                view.sort(Comparator.comparingDouble(TerritorySnapshot::getInfluence).reversed()
+                        .thenComparing(Comparator.comparingInt(TerritorySnapshot::getTier).reversed()));
+                break;
+            case OWNER:
+                view.sort(Comparator.comparing(TerritorySnapshot::getOwnerName, String.CASE_INSENSITIVE_ORDER)
+                        .thenComparing(TerritorySnapshot::getTerritoryName, String.CASE_INSENSITIVE_ORDER));
+                break;
+            default:
+                break;
+        }
+        return Collections.unmodifiableList(view);
+    }
+
+    private static Comparator<TerritorySnapshot> distanceOrder(String worldName, double x, double z) {
+        return Comparator.comparingDouble(territory -> territory.getWorldName().equals(worldName)
+                ? territory.distanceSquared(x, z) : Double.MAX_VALUE);
+    }
+
+    public static final class SnapshotRequest {
+        private final Snapshot cached;
+        private final List<Territory> territories;
+        private final Set<UUID> online;
+        private final long version;
+        private final long createdAt;
+
+        private SnapshotRequest(Snapshot cached, List<Territory> territories, Set<UUID> online, long version, long createdAt) {
+            this.cached = cached;
+            this.territories = territories;
+            this.online = online;
+            this.version = version;
+            this.createdAt = createdAt;
+        }
+    }
+
+    public static final class Snapshot {
+        private final List<TerritorySnapshot> entries;
+        private final long version;
+        private final long createdAt;
+        private final Map<String, List<TerritorySnapshot>> views = new ConcurrentHashMap<>();
+
+        private Snapshot(List<TerritorySnapshot> entries, long version, long createdAt) {
+            this.entries = entries;
+            this.version = version;
+            this.createdAt = createdAt;
+        }
+    }
+}
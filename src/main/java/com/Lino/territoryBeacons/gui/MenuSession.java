@@ -0,0 +1,22 @@
+package com.Lino.territoryBeacons.gui;
+
+import com.Lino.territoryBeacons.Territory;
+import com.Lino.territoryBeacons.managers.TerritoryManager;
+import org.bukkit.Location;
+
+public class MenuSession {
+
+    private final Location beaconLocation;
+
+    public MenuSession(Location beaconLocation) {
+        this.beaconLocation = beaconLocation.clone();
+    }
+
+    public Location getBeaconLocation() {
+        return beaconLocation.clone();
+    }
+
+    public Territory resolveTerritory(TerritoryManager territoryManager) {
+        return territoryManager.getTerritoryByLocation(beaconLocation);
+    }
+}
@@ -0,0 +1,10 @@
+package com.Lino.territoryBeacons.gui;
+
+public enum MenuType {
+    CREATE,
+    MANAGEMENT,
+    UPGRADE,
+    EFFECTS,
+    SETTINGS,
+    DELETE_CONFIRM
+}
@@ -2,6 +2,9 @@ package com.Lino.territoryBeacons.gui;
 
 import com.Lino.territoryBeacons.Territory;
 import com.Lino.territoryBeacons.TerritoryBeacons;
+import com.Lino.territoryBeacons.jfr.GuiActionEvent;
+import com.Lino.territoryBeacons.managers.ConfigSnapshot;
+import com.Lino.territoryBeacons.managers.EconomyManager;
 import com.Lino.territoryBeacons.managers.MessageManager;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -9,24 +12,40 @@ import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class TerritoryGUI {
 
+    private static final List<String> EFFECTS = List.of(
+            "regeneration", "speed", "strength", "resistance", "haste",
+            "jump", "fire_resistance", "luck", "night_vision", "water_breathing", "saturation"
+    );
+    private static final int[] EFFECT_SLOTS = {10, 11, 12, 13, 14, 15, 16, 20, 21, 22, 23, 24};
+    private static final int PVP_SLOT = 11;
+    private static final int MOB_SPAWNING_SLOT = 15;
+
     private final TerritoryBeacons plugin;
     private final MessageManager messageManager;
     private final NamespacedKey tierKey;
     private final NamespacedKey effectKey;
     private final NamespacedKey settingKey;
+    private final Map<UUID, TerritoryMenu> openMenus = new ConcurrentHashMap<>();
+    private final Map<String, ItemStack> itemCache = new ConcurrentHashMap<>();
+    private final Map<MenuType, ItemStack[]> layoutCache = new ConcurrentHashMap<>();
 
     public TerritoryGUI(TerritoryBeacons plugin) {
         this.plugin = plugin;
@@ -36,8 +55,13 @@ public class TerritoryGUI {
         this.settingKey = new NamespacedKey(plugin, "setting");
     }
 
+    public void clearItemCache() {
+        itemCache.clear();
+        layoutCache.clear();
+    }
+
     public void openCreationGUI(Player player, Location beaconLocation) {
-        Inventory gui = Bukkit.createInventory(null, 27, messageManager.get("gui-title-create"));
+        Inventory gui = createMenu(MenuType.CREATE, beaconLocation, 27, "gui-title-create");
 
         List<String> lore = new ArrayList<>();
         lore.add(messageManager.get("gui-create-lore-1"));
@@ -50,13 +74,11 @@ public class TerritoryGUI {
                 "%max%", String.valueOf(plugin.getConfigManager().getMaxTerritoriesPerPlayer())));
 
         gui.setItem(13, createNamedItem(Material.EMERALD_BLOCK, messageManager.get("gui-create-button"), lore));
-        addCloseButton(gui, 22);
-        fillEmpty(gui);
-        player.openInventory(gui);
+        openMenu(player, gui);
     }
 
     public void openTerritoryInfoGUI(Player player, Territory territory) {
-        Inventory gui = Bukkit.createInventory(null, 54, messageManager.get("gui-title-management"));
+        Inventory gui = createMenu(MenuType.MANAGEMENT, territory.getBeaconLocation(), 54, "gui-title-management");
 
         List<String> infoLore = new ArrayList<>();
         infoLore.add(messageManager.get("gui-info-lore-owner", "%owner%", territory.getOwnerName()));
@@ -82,325 +104,471 @@ public class TerritoryGUI {
         }
         gui.setItem(13, createNamedItem(Material.BEACON, messageManager.get("gui-info-button"), infoLore));
 
+        ItemStack trustedItem = createNamedItem(Material.PLAYER_HEAD, messageManager.get("gui-trusted-button"),
+                messageManager.get("gui-trusted-lore-count", "%count%", String.valueOf(territory.getTrustedPlayers().size())));
         boolean isOwner = territory.getOwnerUUID().equals(player.getUniqueId());
         if (isOwner) {
-            gui.setItem(29, createNamedItem(Material.DIAMOND, messageManager.get("gui-upgrade-button"), messageManager.get("gui-upgrade-lore")));
-            gui.setItem(30, createNamedItem(Material.PLAYER_HEAD, messageManager.get("gui-trusted-button"), messageManager.get("gui-trusted-lore-count", "%count%", String.valueOf(territory.getTrustedPlayers().size()))));
-            gui.setItem(31, createNamedItem(Material.GOLDEN_APPLE, messageManager.get("gui-effects-button"), messageManager.get("gui-effects-lore")));
-            gui.setItem(32, createNamedItem(Material.CLOCK, messageManager.get("gui-settings-button"), messageManager.get("gui-settings-lore")));
-            gui.setItem(33, createNamedItem(Material.TNT, messageManager.get("gui-delete-button"), messageManager.get("gui-delete-lore-1"), messageManager.get("gui-delete-lore-2")));
+            gui.setItem(29, cachedItem("management:upgrade", () -> createNamedItem(Material.DIAMOND, messageManager.get("gui-upgrade-button"), messageManager.get("gui-upgrade-lore"))));
+            gui.setItem(30, trustedItem);
+            gui.setItem(31, cachedItem("management:effects", () -> createNamedItem(Material.GOLDEN_APPLE, messageManager.get("gui-effects-button"), messageManager.get("gui-effects-lore"))));
+            gui.setItem(32, cachedItem("management:settings", () -> createNamedItem(Material.CLOCK, messageManager.get("gui-settings-button"), messageManager.get("gui-settings-lore"))));
+            gui.setItem(33, cachedItem("management:delete", () -> createNamedItem(Material.TNT, messageManager.get("gui-delete-button"), messageManager.get("gui-delete-lore-1"), messageManager.get("gui-delete-lore-2"))));
         } else {
-            List<String> trustedLore = new ArrayList<>();
-            trustedLore.add(messageManager.get("gui-trusted-lore-count", "%count%", String.valueOf(territory.getTrustedPlayers().size())));
-            gui.setItem(31, createNamedItem(Material.PLAYER_HEAD, messageManager.get("gui-trusted-button"), trustedLore));
+            gui.setItem(31, trustedItem);
         }
 
-        addCloseButton(gui, 49);
-        fillEmpty(gui);
-        player.openInventory(gui);
+        openMenu(player, gui);
     }
 
     public void openUpgradeGUI(Player player, Territory territory) {
-        Inventory gui = Bukkit.createInventory(null, 54, messageManager.get("gui-title-upgrade"));
+        Inventory gui = createMenu(MenuType.UPGRADE, territory.getBeaconLocation(), 54, "gui-title-upgrade");
         int currentTier = territory.getTier();
         int maxTiers = plugin.getConfigManager().getMaxTiers();
 
         for (int i = 1; i <= maxTiers; i++) {
-            int radius = plugin.getConfigManager().getRadiusForTier(i);
-            List<String> lore = new ArrayList<>();
-            lore.add(messageManager.get("gui-info-lore-radius", "%radius%", String.valueOf(radius)));
-
-            Material material;
-            String name;
+            int tier = i;
             ItemStack item;
-
-            if (i <= currentTier) {
-                material = Material.LIME_STAINED_GLASS_PANE;
-                name = messageManager.get("gui-tier-owned", "%tier%", String.valueOf(i));
-                item = createNamedItem(material, name, lore);
-            } else if (i == currentTier + 1) {
-                material = Material.YELLOW_STAINED_GLASS_PANE;
-                name = messageManager.get("gui-tier-available", "%tier%", String.valueOf(i));
-                lore.add(messageManager.get("gui-tier-cost"));
-                int cost = plugin.getConfigManager().getUpgradeCost(currentTier, i);
-                double moneyCost = cost * plugin.getConfigManager().getUpgradeCostMultiplier();
-                String costType = plugin.getConfigManager().getCostType();
-
-                if (costType.equals("DIAMONDS")) {
-                    lore.add(messageManager.get("gui-tier-cost-diamonds", "%cost%", String.valueOf(cost)));
-                } else if (costType.equals("MONEY")) {
-                    lore.add(messageManager.get("gui-tier-cost-money", "%cost%", plugin.getEconomyManager().format(moneyCost)));
-                } else {
-                    lore.add(messageManager.get("gui-tier-cost-both", "%diamonds%", String.valueOf(cost), "%money%", plugin.getEconomyManager().format(moneyCost)));
-                }
-                item = createNamedItem(material, name, lore);
-                ItemMeta meta = item.getItemMeta();
-                meta.getPersistentDataContainer().set(tierKey, PersistentDataType.INTEGER, i);
-                item.setItemMeta(meta);
+            if (tier <= currentTier) {
+                item = cachedItem("tier:owned:" + tier, () -> createTierItem(Material.LIME_STAINED_GLASS_PANE, "gui-tier-owned", tier));
+            } else if (tier == currentTier + 1) {
+                item = createAvailableTierItem(currentTier, tier);
             } else {
-                material = Material.RED_STAINED_GLASS_PANE;
-                name = messageManager.get("gui-tier-locked", "%tier%", String.valueOf(i));
-                item = createNamedItem(material, name, lore);
+                item = cachedItem("tier:locked:" + tier, () -> createTierItem(Material.RED_STAINED_GLASS_PANE, "gui-tier-locked", tier));
             }
 
             int slot;
-            if (i <= 4) {
-                slot = 10 + (i - 1) * 2;
+            if (tier <= 4) {
+                slot = 10 + (tier - 1) * 2;
             } else {
-                slot = 28 + (i - 5) * 2;
+                slot = 28 + (tier - 5) * 2;
             }
             gui.setItem(slot, item);
         }
 
-        gui.setItem(49, createNamedItem(Material.ARROW, messageManager.get("gui-back-button")));
-        fillEmpty(gui);
-        player.openInventory(gui);
+        openMenu(player, gui);
     }
 
     public void openEffectsGUI(Player player, Territory territory) {
-        Inventory gui = Bukkit.createInventory(null, 45, messageManager.get("gui-title-effects"));
-        List<String> effects = Arrays.asList(
-                "regeneration", "speed", "strength", "resistance", "haste",
-                "jump", "fire_resistance", "luck", "night_vision", "water_breathing", "saturation"
-        );
-
-        int[] slots = {10, 11, 12, 13, 14, 15, 16, 20, 21, 22, 23, 24};
-
-        for (int i = 0; i < effects.size(); i++) {
-            if (i >= slots.length) break;
-
-            String effect = effects.get(i);
-            List<String> lore = new ArrayList<>();
-            lore.add(messageManager.get("gui-effect-" + effect + "-lore"));
-            lore.add("");
-
-            Material material;
-            if (territory.isEffectUnlocked(effect)) {
-                material = territory.hasEffect(effect) ? Material.LIME_DYE : Material.GRAY_DYE;
-                lore.add(messageManager.get(territory.hasEffect(effect) ? "gui-effect-status-active" : "gui-effect-status-inactive"));
-            } else {
-                material = Material.RED_DYE;
-                lore.add(messageManager.get("gui-effect-status-locked"));
-                double cost = plugin.getConfigManager().getEffectCost(effect);
-                lore.add(messageManager.get("gui-effect-unlock-cost", "%cost%", plugin.getEconomyManager().format(cost)));
-            }
-            ItemStack item = createNamedItem(material, messageManager.get("gui-effect-" + effect), lore);
-            ItemMeta meta = item.getItemMeta();
-            meta.getPersistentDataContainer().set(effectKey, PersistentDataType.STRING, effect);
-            item.setItemMeta(meta);
-            gui.setItem(slots[i], item);
+        Inventory gui = createMenu(MenuType.EFFECTS, territory.getBeaconLocation(), 45, "gui-title-effects");
+        for (int i = 0; i < EFFECTS.size() && i < EFFECT_SLOTS.length; i++) {
+            gui.setItem(EFFECT_SLOTS[i], effectItem(territory, EFFECTS.get(i)));
         }
-
-        gui.setItem(40, createNamedItem(Material.ARROW, messageManager.get("gui-back-button")));
-        fillEmpty(gui);
-        player.openInventory(gui);
+        openMenu(player, gui);
     }
 
     public void openSettingsGUI(Player player, Territory territory) {
-        Inventory gui = Bukkit.createInventory(null, 27, messageManager.get("gui-title-settings"));
-
-        List<String> pvpLore = new ArrayList<>();
-        pvpLore.add(messageManager.get("gui-setting-pvp-lore"));
-        pvpLore.add("");
-        pvpLore.add(messageManager.get(territory.isPvpEnabled() ? "gui-setting-status-enabled" : "gui-setting-status-disabled"));
-        ItemStack pvpItem = createNamedItem(territory.isPvpEnabled() ? Material.DIAMOND_SWORD : Material.WOODEN_SWORD, messageManager.get("gui-setting-pvp"), pvpLore);
-        ItemMeta pvpMeta = pvpItem.getItemMeta();
-        pvpMeta.getPersistentDataContainer().set(settingKey, PersistentDataType.STRING, "pvp");
-        pvpItem.setItemMeta(pvpMeta);
-        gui.setItem(11, pvpItem);
-
-        List<String> mobLore = new ArrayList<>();
-        mobLore.add(messageManager.get("gui-setting-mob-spawning-lore"));
-        mobLore.add("");
-        mobLore.add(messageManager.get(territory.isMobSpawningEnabled() ? "gui-setting-status-enabled" : "gui-setting-status-disabled"));
-        ItemStack mobItem = createNamedItem(territory.isMobSpawningEnabled() ? Material.ZOMBIE_HEAD : Material.SKELETON_SKULL, messageManager.get("gui-setting-mob-spawning"), mobLore);
-        ItemMeta mobMeta = mobItem.getItemMeta();
-        mobMeta.getPersistentDataContainer().set(settingKey, PersistentDataType.STRING, "mob_spawning");
-        mobItem.setItemMeta(mobMeta);
-        gui.setItem(15, mobItem);
-
-        gui.setItem(22, createNamedItem(Material.ARROW, messageManager.get("gui-back-button")));
-        fillEmpty(gui);
-        player.openInventory(gui);
+        Inventory gui = createMenu(MenuType.SETTINGS, territory.getBeaconLocation(), 27, "gui-title-settings");
+        gui.setItem(PVP_SLOT, settingItem("pvp", territory.isPvpEnabled()));
+        gui.setItem(MOB_SPAWNING_SLOT, settingItem("mob_spawning", territory.isMobSpawningEnabled()));
+        openMenu(player, gui);
     }
 
     public void openDeleteConfirmationGUI(Player player, Territory territory) {
-        Inventory gui = Bukkit.createInventory(null, 27, messageManager.get("gui-title-delete-confirm"));
+        Inventory gui = createMenu(MenuType.DELETE_CONFIRM, territory.getBeaconLocation(), 27, "gui-title-delete-confirm");
         gui.setItem(4, createNamedItem(Material.BARRIER, messageManager.get("gui-delete-confirm-warning"),
                 messageManager.get("gui-delete-confirm-lore"),
                 messageManager.get("gui-info-lore-tier", "%tier%", String.valueOf(territory.getTier())),
                 messageManager.get("gui-info-lore-radius", "%radius%", String.valueOf(territory.getRadius()))
         ));
-        gui.setItem(11, createNamedItem(Material.RED_WOOL, messageManager.get("gui-delete-confirm-button")));
-        gui.setItem(15, createNamedItem(Material.LIME_WOOL, messageManager.get("gui-cancel-button")));
-        fillEmpty(gui);
-        player.openInventory(gui);
+        openMenu(player, gui);
     }
 
     public void handleInventoryClick(InventoryClickEvent event) {
         if (!(event.getWhoClicked() instanceof Player)) return;
 
-        String title = event.getView().getTitle();
-        if (!title.equals(messageManager.get("gui-title-create")) &&
-                !title.equals(messageManager.get("gui-title-management")) &&
-                !title.equals(messageManager.get("gui-title-upgrade")) &&
-                !title.equals(messageManager.get("gui-title-delete-confirm")) &&
-                !title.equals(messageManager.get("gui-title-effects")) &&
-                !title.equals(messageManager.get("gui-title-settings"))) {
-            return;
-        }
+        Player player = (Player) event.getWhoClicked();
+        if (!openMenus.containsKey(player.getUniqueId())) return;
+
+        InventoryHolder holder = event.getView().getTopInventory().getHolder();
+        if (!(holder instanceof TerritoryMenu)) return;
 
         event.setCancelled(true);
 
-        Player player = (Player) event.getWhoClicked();
         ItemStack clickedItem = event.getCurrentItem();
-
         if (clickedItem == null || clickedItem.getType().isAir() || clickedItem.getType() == Material.GRAY_STAINED_GLASS_PANE)
             return;
 
-        Location beaconLoc = findNearbyBeacon(player);
-        if (beaconLoc == null) {
+        TerritoryMenu menu = (TerritoryMenu) holder;
+        GuiActionEvent action = new GuiActionEvent();
+        action.begin();
+        try {
+            dispatchClick(player, menu, clickedItem);
+        } finally {
+            if (action.shouldCommit()) {
+                action.menu = menu.getType().name();
+                action.slot = event.getRawSlot();
+                action.item = clickedItem.getType().name();
+                action.commit();
+            }
+        }
+    }
+
+    private void dispatchClick(Player player, TerritoryMenu menu, ItemStack clickedItem) {
+        if (menu.getType() == MenuType.CREATE) {
+            handleCreateClick(player, menu.getSession(), clickedItem);
+            return;
+        }
+
+        Territory territory = menu.getSession().resolveTerritory(plugin.getTerritoryManager());
+        if (territory == null) {
             player.closeInventory();
             player.sendMessage(messageManager.get("beacon-action-failed"));
             return;
         }
+        if (!territory.getOwnerUUID().equals(player.getUniqueId())) return;
+
+        switch (menu.getType()) {
+            case MANAGEMENT:
+                handleManagementClick(player, territory, clickedItem);
+                break;
+            case UPGRADE:
+                handleUpgradeClick(player, territory, clickedItem);
+                break;
+            case EFFECTS:
+                handleEffectsClick(player, territory, menu.getInventory(), clickedItem);
+                break;
+            case SETTINGS:
+                handleSettingsClick(player, territory, menu.getInventory(), clickedItem);
+                break;
+            case DELETE_CONFIRM:
+                handleDeleteConfirmClick(player, territory, clickedItem);
+                break;
+            default:
+                break;
+        }
+    }
 
-        Territory territory = plugin.getTerritoryManager().getTerritoryByLocation(beaconLoc);
-        boolean isOwner = territory != null && territory.getOwnerUUID().equals(player.getUniqueId());
-
-        if (title.equals(messageManager.get("gui-title-create"))) {
-            if (clickedItem.getType() == Material.EMERALD_BLOCK) {
-                player.closeInventory();
-                plugin.getTerritoryManager().createTerritory(player, beaconLoc);
-            } else if (clickedItem.getType() == Material.BARRIER) {
-                player.closeInventory();
-            }
-        } else if (title.equals(messageManager.get("gui-title-management"))) {
-            if (!isOwner) return;
-            if (clickedItem.getType() == Material.DIAMOND) openUpgradeGUI(player, territory);
-            else if (clickedItem.getType() == Material.GOLDEN_APPLE) openEffectsGUI(player, territory);
-            else if (clickedItem.getType() == Material.CLOCK) openSettingsGUI(player, territory);
-            else if (clickedItem.getType() == Material.TNT) openDeleteConfirmationGUI(player, territory);
-            else if (clickedItem.getType() == Material.BARRIER) player.closeInventory();
-        } else if (title.equals(messageManager.get("gui-title-upgrade"))) {
-            if (!isOwner) return;
-            if (clickedItem.getType() == Material.YELLOW_STAINED_GLASS_PANE) {
-                ItemMeta meta = clickedItem.getItemMeta();
-                if (meta == null || !meta.getPersistentDataContainer().has(tierKey, PersistentDataType.INTEGER)) {
-                    return;
-                }
-                int targetTier = meta.getPersistentDataContainer().get(tierKey, PersistentDataType.INTEGER);
-                int cost = plugin.getConfigManager().getUpgradeCost(territory.getTier(), targetTier);
-                double moneyCost = cost * plugin.getConfigManager().getUpgradeCostMultiplier();
-                String costType = plugin.getConfigManager().getCostType();
-
-                boolean paid = false;
-                switch (costType) {
-                    case "DIAMONDS":
-                        if (player.getInventory().contains(Material.DIAMOND, cost)) {
-                            player.getInventory().removeItem(new ItemStack(Material.DIAMOND, cost));
-                            paid = true;
-                        } else {
-                            player.sendMessage(messageManager.get("need-more-diamonds", "%cost%", String.valueOf(cost)));
-                        }
-                        break;
-                    case "MONEY":
-                        if (plugin.getEconomyManager().hasEnough(player, moneyCost)) {
-                            plugin.getEconomyManager().withdraw(player, moneyCost);
-                            paid = true;
-                        } else {
-                            player.sendMessage(messageManager.get("not-enough-money", "%cost%", plugin.getEconomyManager().format(moneyCost)));
-                        }
-                        break;
-                    case "BOTH":
-                        if (player.getInventory().contains(Material.DIAMOND, cost) && plugin.getEconomyManager().hasEnough(player, moneyCost)) {
-                            player.getInventory().removeItem(new ItemStack(Material.DIAMOND, cost));
-                            plugin.getEconomyManager().withdraw(player, moneyCost);
-                            paid = true;
-                        } else {
-                            player.sendMessage(messageManager.get("not-enough-resources"));
-                        }
-                        break;
-                }
-
-                if (paid) {
-                    player.closeInventory();
-                    plugin.getTerritoryManager().upgradeTerritory(player, territory, targetTier);
-                } else {
-                    player.closeInventory();
-                }
+    public void handleInventoryClose(InventoryCloseEvent event) {
+        openMenus.remove(event.getPlayer().getUniqueId());
+    }
 
-            } else if (clickedItem.getType() == Material.ARROW) {
-                openTerritoryInfoGUI(player, territory);
-            }
-        } else if (title.equals(messageManager.get("gui-title-effects"))) {
-            if (!isOwner) return;
+    public void clearOpenMenu(Player player) {
+        openMenus.remove(player.getUniqueId());
+    }
 
-            if (clickedItem.getType() == Material.ARROW) {
-                openTerritoryInfoGUI(player, territory);
+    private void handleCreateClick(Player player, MenuSession session, ItemStack clickedItem) {
+        if (clickedItem.getType() == Material.EMERALD_BLOCK) {
+            player.closeInventory();
+            Location beaconLoc = session.getBeaconLocation();
+            if (beaconLoc.getBlock().getType() != Material.BEACON || session.resolveTerritory(plugin.getTerritoryManager()) != null) {
+                player.sendMessage(messageManager.get("beacon-action-failed"));
                 return;
             }
+            plugin.getTerritoryManager().createTerritory(player, beaconLoc);
+        } else if (clickedItem.getType() == Material.BARRIER) {
+            player.closeInventory();
+        }
+    }
+
+    private void handleManagementClick(Player player, Territory territory, ItemStack clickedItem) {
+        if (clickedItem.getType() == Material.DIAMOND) openUpgradeGUI(player, territory);
+        else if (clickedItem.getType() == Material.GOLDEN_APPLE) openEffectsGUI(player, territory);
+        else if (clickedItem.getType() == Material.CLOCK) openSettingsGUI(player, territory);
+        else if (clickedItem.getType() == Material.TNT) openDeleteConfirmationGUI(player, territory);
+        else if (clickedItem.getType() == Material.BARRIER) player.closeInventory();
+    }
 
+    private void handleUpgradeClick(Player player, Territory territory, ItemStack clickedItem) {
+        if (clickedItem.getType() == Material.YELLOW_STAINED_GLASS_PANE) {
             ItemMeta meta = clickedItem.getItemMeta();
-            if (meta == null || !meta.getPersistentDataContainer().has(effectKey, PersistentDataType.STRING)) {
+            if (meta == null || !meta.getPersistentDataContainer().has(tierKey, PersistentDataType.INTEGER)) {
                 return;
             }
-            String effect = meta.getPersistentDataContainer().get(effectKey, PersistentDataType.STRING);
+            int targetTier = meta.getPersistentDataContainer().get(tierKey, PersistentDataType.INTEGER);
+            ConfigSnapshot config = plugin.getConfigManager().getSnapshot();
+            int cost = config.getUpgradeCost(territory.getTier(), targetTier);
+            double moneyCost = cost * config.getUpgradeCostMultiplier();
+            String costType = config.getCostType();
 
-            if (territory.isEffectUnlocked(effect)) {
-                territory.toggleEffect(effect);
-                player.sendMessage(messageManager.get(territory.hasEffect(effect) ? "effect-activated" : "effect-deactivated", "%effect%", effect));
-                openEffectsGUI(player, territory);
-            } else {
-                double cost = plugin.getConfigManager().getEffectCost(effect);
-                if (plugin.getEconomyManager().hasEnough(player, cost)) {
-                    plugin.getEconomyManager().withdraw(player, cost);
-                    territory.unlockEffect(effect);
-                    territory.toggleEffect(effect);
-                    player.sendMessage(messageManager.get("effect-unlocked", "%effect%", effect));
-                    openEffectsGUI(player, territory);
-                } else {
-                    player.sendMessage(messageManager.get("not-enough-money", "%cost%", plugin.getEconomyManager().format(cost)));
+            player.closeInventory();
+            switch (costType) {
+                case "DIAMONDS":
+                    if (player.getInventory().contains(Material.DIAMOND, cost)) {
+                        player.getInventory().removeItem(new ItemStack(Material.DIAMOND, cost));
+                        plugin.getTerritoryManager().upgradeTerritory(player, territory, targetTier);
+                    } else {
+                        player.sendMessage(messageManager.get("need-more-diamonds", "%cost%", String.valueOf(cost)));
+                    }
+                    break;
+                case "MONEY":
+                    chargeForUpgrade(player, territory, targetTier, 0, moneyCost);
+                    break;
+                case "BOTH":
+                    if (player.getInventory().contains(Material.DIAMOND, cost)) {
+                        chargeForUpgrade(player, territory, targetTier, cost, moneyCost);
+                    } else {
+                        player.sendMessage(messageManager.get("not-enough-resources"));
+                    }
+                    break;
+            }
+
+        } else if (clickedItem.getType() == Material.ARROW) {
+            openTerritoryInfoGUI(player, territory);
+        }
+    }
+
+    private void handleEffectsClick(Player player, Territory territory, Inventory gui, ItemStack clickedItem) {
+        if (clickedItem.getType() == Material.ARROW) {
+            openTerritoryInfoGUI(player, territory);
+            return;
+        }
+
+        ItemMeta meta = clickedItem.getItemMeta();
+        if (meta == null || !meta.getPersistentDataContainer().has(effectKey, PersistentDataType.STRING)) {
+            return;
+        }
+        String effect = meta.getPersistentDataContainer().get(effectKey, PersistentDataType.STRING);
+
+        if (territory.isEffectUnlocked(effect)) {
+            territory.toggleEffect(effect);
+            plugin.getEffectManager().updateEffects(territory);
+            player.sendMessage(messageManager.get(territory.hasEffect(effect) ? "effect-activated" : "effect-deactivated", "%effect%", effect));
+            refreshEffectSlot(gui, territory, effect);
+        } else {
+            double cost = plugin.getConfigManager().getEffectCost(effect);
+            Location beaconLoc = territory.getBeaconLocation();
+            plugin.getEconomyManager().charge(player, cost, result -> {
+                if (result != EconomyManager.Result.SUCCESS) {
+                    sendPaymentFailure(player, result, "not-enough-money", cost);
+                    if (result != EconomyManager.Result.BUSY) player.closeInventory();
+                    return false;
+                }
+                // The claim may have been upgraded or removed, or the effect unlocked by someone else, while paying
+                Territory current = plugin.getTerritoryManager().getTerritoryByLocation(beaconLoc);
+                if (current == null || current.isEffectUnlocked(effect)) {
+                    player.sendMessage(messageManager.get("payment-refunded", "%cost%", plugin.getEconomyManager().format(cost)));
                     player.closeInventory();
+                    return false;
                 }
-            }
-        } else if (title.equals(messageManager.get("gui-title-settings"))) {
-            if (!isOwner) return;
+                current.unlockEffect(effect);
+                current.toggleEffect(effect);
+                plugin.getEffectManager().updateEffects(current);
+                player.sendMessage(messageManager.get("effect-unlocked", "%effect%", effect));
+                refreshEffectSlot(gui, current, effect);
+                return true;
+            });
+        }
+    }
 
-            if (clickedItem.getType() == Material.ARROW) {
-                openTerritoryInfoGUI(player, territory);
-                return;
+    private void chargeForUpgrade(Player player, Territory territory, int targetTier, int diamonds, double moneyCost) {
+        Location beaconLoc = territory.getBeaconLocation();
+        plugin.getEconomyManager().charge(player, moneyCost, result -> {
+            if (result != EconomyManager.Result.SUCCESS) {
+                sendPaymentFailure(player, result, diamonds > 0 ? "not-enough-resources" : "not-enough-money", moneyCost);
+                return false;
+            }
+            // Re-check everything the click was based on; the diamonds are only taken once the money is in
+            Territory current = plugin.getTerritoryManager().getTerritoryByLocation(beaconLoc);
+            if (current != territory || (diamonds > 0 && !player.getInventory().contains(Material.DIAMOND, diamonds))) {
+                player.sendMessage(messageManager.get("payment-refunded", "%cost%", plugin.getEconomyManager().format(moneyCost)));
+                return false;
             }
+            if (diamonds > 0) {
+                player.getInventory().removeItem(new ItemStack(Material.DIAMOND, diamonds));
+            }
+            plugin.getTerritoryManager().upgradeTerritory(player, current, targetTier);
+            return true;
+        });
+    }
 
-            ItemMeta meta = clickedItem.getItemMeta();
-            if (meta == null || !meta.getPersistentDataContainer().has(settingKey, PersistentDataType.STRING)) {
-                return;
+    private void sendPaymentFailure(Player player, EconomyManager.Result result, String insufficientKey, double cost) {
+        switch (result) {
+            case BUSY:
+                player.sendMessage(messageManager.get("payment-pending"));
+                break;
+            case TIMED_OUT:
+                player.sendMessage(messageManager.get("payment-timed-out"));
+                break;
+            case FAILED:
+                player.sendMessage(messageManager.get("payment-failed"));
+                break;
+            default:
+                player.sendMessage(messageManager.get(insufficientKey, "%cost%", plugin.getEconomyManager().format(cost)));
+                break;
+        }
+    }
+
+    private void handleSettingsClick(Player player, Territory territory, Inventory gui, ItemStack clickedItem) {
+        if (clickedItem.getType() == Material.ARROW) {
+            openTerritoryInfoGUI(player, territory);
+            return;
+        }
+
+        ItemMeta meta = clickedItem.getItemMeta();
+        if (meta == null || !meta.getPersistentDataContainer().has(settingKey, PersistentDataType.STRING)) {
+            return;
+        }
+        String setting = meta.getPersistentDataContainer().get(settingKey, PersistentDataType.STRING);
+
+        if (setting.equals("pvp")) {
+            territory.setPvpEnabled(!territory.isPvpEnabled());
+            player.sendMessage(messageManager.get("setting-changed", "%setting%", "PVP", "%status%", territory.isPvpEnabled() ? "enabled" : "disabled"));
+            gui.setItem(PVP_SLOT, settingItem("pvp", territory.isPvpEnabled()));
+        } else if (setting.equals("mob_spawning")) {
+            territory.setMobSpawningEnabled(!territory.isMobSpawningEnabled());
+            player.sendMessage(messageManager.get("setting-changed", "%setting%", "Mob Spawning", "%status%", territory.isMobSpawningEnabled() ? "enabled" : "disabled"));
+            gui.setItem(MOB_SPAWNING_SLOT, settingItem("mob_spawning", territory.isMobSpawningEnabled()));
+        }
+    }
+
+    private void handleDeleteConfirmClick(Player player, Territory territory, ItemStack clickedItem) {
+        if (clickedItem.getType() == Material.RED_WOOL) {
+            player.closeInventory();
+            plugin.getTerritoryManager().deleteTerritory(player, territory, territory.getBeaconLocation());
+        } else if (clickedItem.getType() == Material.LIME_WOOL) {
+            openTerritoryInfoGUI(player, territory);
+        }
+    }
+
+    private void refreshEffectSlot(Inventory gui, Territory territory, String effect) {
+        int index = EFFECTS.indexOf(effect);
+        if (index >= 0 && index < EFFECT_SLOTS.length) {
+            gui.setItem(EFFECT_SLOTS[index], effectItem(territory, effect));
+        }
+    }
+
+    private ItemStack effectItem(Territory territory, String effect) {
+        String state;
+        if (!territory.isEffectUnlocked(effect)) {
+            state = "locked";
+        } else {
+            state = territory.hasEffect(effect) ? "active" : "inactive";
+        }
+        return cachedItem("effect:" + effect + ":" + state, () -> {
+            List<String> lore = new ArrayList<>();
+            lore.add(messageManager.get("gui-effect-" + effect + "-lore"));
+            lore.add("");
+
+            Material material;
+            if (state.equals("locked")) {
+                material = Material.RED_DYE;
+                lore.add(messageManager.get("gui-effect-status-locked"));
+                double cost = plugin.getConfigManager().getEffectCost(effect);
+                lore.add(messageManager.get("gui-effect-unlock-cost", "%cost%", plugin.getEconomyManager().format(cost)));
+            } else {
+                material = state.equals("active") ? Material.LIME_DYE : Material.GRAY_DYE;
+                lore.add(messageManager.get(state.equals("active") ? "gui-effect-status-active" : "gui-effect-status-inactive"));
             }
-            String setting = meta.getPersistentDataContainer().get(settingKey, PersistentDataType.STRING);
+            ItemStack item = createNamedItem(material, messageManager.get("gui-effect-" + effect), lore);
+            ItemMeta meta = item.getItemMeta();
+            meta.getPersistentDataContainer().set(effectKey, PersistentDataType.STRING, effect);
+            item.setItemMeta(meta);
+            return item;
+        });
+    }
 
+    private ItemStack settingItem(String setting, boolean enabled) {
+        return cachedItem("setting:" + setting + ":" + enabled, () -> {
+            Material material;
+            String nameKey;
             if (setting.equals("pvp")) {
-                territory.setPvpEnabled(!territory.isPvpEnabled());
-                player.sendMessage(messageManager.get("setting-changed", "%setting%", "PVP", "%status%", territory.isPvpEnabled() ? "enabled" : "disabled"));
-                openSettingsGUI(player, territory);
-            } else if (setting.equals("mob_spawning")) {
-                territory.setMobSpawningEnabled(!territory.isMobSpawningEnabled());
-                player.sendMessage(messageManager.get("setting-changed", "%setting%", "Mob Spawning", "%status%", territory.isMobSpawningEnabled() ? "enabled" : "disabled"));
-                openSettingsGUI(player, territory);
+                material = enabled ? Material.DIAMOND_SWORD : Material.WOODEN_SWORD;
+                nameKey = "gui-setting-pvp";
+            } else {
+                material = enabled ? Material.ZOMBIE_HEAD : Material.SKELETON_SKULL;
+                nameKey = "gui-setting-mob-spawning";
             }
+            List<String> lore = new ArrayList<>();
+            lore.add(messageManager.get(nameKey + "-lore"));
+            lore.add("");
+            lore.add(messageManager.get(enabled ? "gui-setting-status-enabled" : "gui-setting-status-disabled"));
+            ItemStack item = createNamedItem(material, messageManager.get(nameKey), lore);
+            ItemMeta meta = item.getItemMeta();
+            meta.getPersistentDataContainer().set(settingKey, PersistentDataType.STRING, setting);
+            item.setItemMeta(meta);
+            return item;
+        });
+    }
+
+    private ItemStack createTierItem(Material material, String nameKey, int tier) {
+        int radius = plugin.getConfigManager().getRadiusForTier(tier);
+        return createNamedItem(material, messageManager.get(nameKey, "%tier%", String.valueOf(tier)),
+                messageManager.get("gui-info-lore-radius", "%radius%", String.valueOf(radius)));
+    }
+
+    private ItemStack createAvailableTierItem(int currentTier, int tier) {
+        ConfigSnapshot config = plugin.getConfigManager().getSnapshot();
+        List<String> lore = new ArrayList<>();
+        lore.add(messageManager.get("gui-info-lore-radius", "%radius%", String.valueOf(config.getRadiusForTier(tier))));
+        lore.add(messageManager.get("gui-tier-cost"));
+        int cost = config.getUpgradeCost(currentTier, tier);
+        double moneyCost = cost * config.getUpgradeCostMultiplier();
+        String costType = config.getCostType();
+
+        if (costType.equals("DIAMONDS")) {
+            lore.add(messageManager.get("gui-tier-cost-diamonds", "%cost%", String.valueOf(cost)));
+        } else if (costType.equals("MONEY")) {
+            lore.add(messageManager.get("gui-tier-cost-money", "%cost%", plugin.getEconomyManager().format(moneyCost)));
+        } else {
+            lore.add(messageManager.get("gui-tier-cost-both", "%diamonds%", String.valueOf(cost), "%money%", plugin.getEconomyManager().format(moneyCost)));
+        }
+        ItemStack item = createNamedItem(Material.YELLOW_STAINED_GLASS_PANE, messageManager.get("gui-tier-available", "%tier%", String.valueOf(tier)), lore);
+        ItemMeta meta = item.getItemMeta();
+        meta.getPersistentDataContainer().set(tierKey, PersistentDataType.INTEGER, tier);
+        item.setItemMeta(meta);
+        return item;
+    }
 
-        } else if (title.equals(messageManager.get("gui-title-delete-confirm"))) {
-            if (!isOwner) return;
-            if (clickedItem.getType() == Material.RED_WOOL) {
-                player.closeInventory();
-                plugin.getTerritoryManager().deleteTerritory(player, territory, beaconLoc);
-            } else if (clickedItem.getType() == Material.LIME_WOOL) {
-                openTerritoryInfoGUI(player, territory);
+    private Inventory createMenu(MenuType type, Location beaconLocation, int size, String titleKey) {
+        TerritoryMenu menu = new TerritoryMenu(type, new MenuSession(beaconLocation));
+        Inventory inventory = Bukkit.createInventory(menu, size, messageManager.get(titleKey));
+        inventory.setContents(layoutCache.computeIfAbsent(type, t -> createLayout(t, size)));
+        menu.setInventory(inventory);
+        return inventory;
+    }
+
+    private ItemStack[] createLayout(MenuType type, int size) {
+        ItemStack[] layout = new ItemStack[size];
+        switch (type) {
+            case CREATE:
+                layout[22] = closeButton();
+                break;
+            case MANAGEMENT:
+                layout[49] = closeButton();
+                break;
+            case UPGRADE:
+                layout[49] = backButton();
+                break;
+            case EFFECTS:
+                layout[40] = backButton();
+                break;
+            case SETTINGS:
+                layout[22] = backButton();
+                break;
+            case DELETE_CONFIRM:
+                layout[11] = createNamedItem(Material.RED_WOOL, messageManager.get("gui-delete-confirm-button"));
+                layout[15] = createNamedItem(Material.LIME_WOOL, messageManager.get("gui-cancel-button"));
+                break;
+        }
+        ItemStack filler = cachedItem("filler", () -> createNamedItem(Material.GRAY_STAINED_GLASS_PANE, " "));
+        for (int i = 0; i < size; i++) {
+            if (layout[i] == null) {
+                layout[i] = filler;
             }
         }
+        return layout;
+    }
+
+    private void openMenu(Player player, Inventory gui) {
+        player.openInventory(gui);
+        openMenus.put(player.getUniqueId(), (TerritoryMenu) gui.getHolder());
     }
 
-    private void addCloseButton(Inventory gui, int slot) {
-        gui.setItem(slot, createNamedItem(Material.BARRIER, messageManager.get("gui-close-button")));
+    private ItemStack closeButton() {
+        return cachedItem("close", () -> createNamedItem(Material.BARRIER, messageManager.get("gui-close-button")));
+    }
+
+    private ItemStack backButton() {
+        return cachedItem("back", () -> createNamedItem(Material.ARROW, messageManager.get("gui-back-button")));
+    }
+
+    private ItemStack cachedItem(String key, Supplier<ItemStack> factory) {
+        ItemStack item = itemCache.get(key);
+        if (item == null) {
+            item = factory.get();
+            itemCache.put(key, item);
+        }
+        return item;
     }
 
     private ItemStack createNamedItem(Material material, String name, String... lore) {
@@ -416,37 +584,4 @@ public class TerritoryGUI {
         item.setItemMeta(meta);
         return item;
     }
-
-    private void fillEmpty(Inventory inventory) {
-        ItemStack filler = createNamedItem(Material.GRAY_STAINED_GLASS_PANE, " ");
-        for (int i = 0; i < inventory.getSize(); i++) {
-            if (inventory.getItem(i) == null) {
-                inventory.setItem(i, filler);
-            }
-        }
-    }
-
-    private Location findNearbyBeacon(Player player) {
-        int radius = 15;
-        Location playerLoc = player.getLocation();
-
-        for (Territory territory : plugin.getTerritoryManager().getAllTerritories()) {
-            Location beaconLoc = territory.getBeaconLocation();
-            if (beaconLoc.getWorld().equals(player.getWorld()) && beaconLoc.distanceSquared(playerLoc) < radius * radius) {
-                return beaconLoc;
-            }
-        }
-
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -radius; y <= radius; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    Location blockLoc = playerLoc.getBlock().getRelative(x, y, z).getLocation();
-                    if (blockLoc.getBlock().getType() == Material.BEACON) {
-                        return blockLoc;
-                    }
-                }
-            }
-        }
-        return null;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.Lino.territoryBeacons.gui;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+public class TerritoryMenu implements InventoryHolder {
+
+    private final MenuType type;
+    private final MenuSession session;
+    private Inventory inventory;
+
+    public TerritoryMenu(MenuType type, MenuSession session) {
+        this.type = type;
+        this.session = session;
+    }
+
+    public MenuType getType() {
+        return type;
+    }
+
+    public MenuSession getSession() {
+        return session;
+    }
+
+    void setInventory(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+}
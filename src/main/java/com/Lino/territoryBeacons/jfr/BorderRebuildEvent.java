@@ -0,0 +1,28 @@
+package com.Lino.territoryBeacons.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("territorybeacons.BorderRebuild")
+@Label("Border Rebuild")
+@Category({"TerritoryBeacons", "World"})
+@Description("Border torches placed in one chunk of a new ring, on the thread owning that chunk; the first batch also counts the old torches queued for removal")
+public class BorderRebuildEvent extends jdk.jfr.Event {
+
+    @Label("World")
+    public String world;
+
+    @Label("Radius")
+    public int radius;
+
+    @Label("Torches Removed")
+    public int removed;
+
+    @Label("Positions In Batch")
+    public int candidates;
+
+    @Label("Torches Placed")
+    public int placed;
+}
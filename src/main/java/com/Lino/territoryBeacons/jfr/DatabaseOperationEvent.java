@@ -0,0 +1,24 @@
+package com.Lino.territoryBeacons.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("territorybeacons.DatabaseOperation")
+@Label("Database Operation")
+@Category({"TerritoryBeacons", "Database"})
+@Description("A DatabaseManager operation against SQLite")
+@Threshold("1 ms")
+@StackTrace(false)
+public class DatabaseOperationEvent extends jdk.jfr.Event {
+
+    @Label("Statement")
+    public String statement;
+
+    @Label("Rows")
+    @Description("Rows written, or rows read for loads")
+    public int rows;
+}
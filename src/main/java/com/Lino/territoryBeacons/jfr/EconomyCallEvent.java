@@ -0,0 +1,24 @@
+package com.Lino.territoryBeacons.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("territorybeacons.EconomyCall")
+@Label("Economy Call")
+@Category({"TerritoryBeacons", "Economy"})
+@Description("A blocking call into the Vault economy provider")
+@StackTrace(false)
+public class EconomyCallEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Amount")
+    public double amount;
+
+    @Label("Success")
+    public boolean success;
+}
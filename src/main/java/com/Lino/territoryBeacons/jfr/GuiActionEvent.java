@@ -0,0 +1,22 @@
+package com.Lino.territoryBeacons.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("territorybeacons.GuiAction")
+@Label("GUI Action")
+@Category({"TerritoryBeacons", "GUI"})
+@Description("A click in one of the territory menus, from dispatch to the handler returning")
+public class GuiActionEvent extends jdk.jfr.Event {
+
+    @Label("Menu")
+    public String menu;
+
+    @Label("Slot")
+    public int slot;
+
+    @Label("Item")
+    public String item;
+}
@@ -0,0 +1,25 @@
+package com.Lino.territoryBeacons.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("territorybeacons.MarkerSync")
+@Label("Map Marker Sync")
+@Category({"TerritoryBeacons", "Map"})
+@Description("A territory's Pl3xMap markers added, updated or removed")
+@StackTrace(false)
+public class MarkerSyncEvent extends jdk.jfr.Event {
+
+    @Label("Action")
+    public String action;
+
+    @Label("Owner")
+    public String owner;
+
+    @Label("Applied")
+    @Description("False when the map or its layer was not available")
+    public boolean applied;
+}
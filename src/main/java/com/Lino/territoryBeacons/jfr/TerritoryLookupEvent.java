@@ -0,0 +1,32 @@
+package com.Lino.territoryBeacons.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Fires for every location lookup, often thousands per tick, so it is off unless a recording
+// turns it on (see profiling/territorybeacons.jfc)
+@Name("territorybeacons.TerritoryLookup")
+@Label("Territory Lookup")
+@Category({"TerritoryBeacons", "Index"})
+@Description("A location resolved against the territory index")
+@Enabled(false)
+@StackTrace(false)
+public class TerritoryLookupEvent extends jdk.jfr.Event {
+
+    @Label("Block X")
+    public int blockX;
+
+    @Label("Block Z")
+    public int blockZ;
+
+    @Label("Candidates")
+    @Description("Claims in the grid cell that were tested; 0 when the chunk filter ruled the location out")
+    public int candidates;
+
+    @Label("Hit")
+    public boolean hit;
+}
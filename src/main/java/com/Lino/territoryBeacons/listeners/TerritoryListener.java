@@ -1,21 +1,23 @@
 package com.Lino.territoryBeacons.listeners;
 
+import com.Lino.territoryBeacons.PlayerSession;
 import com.Lino.territoryBeacons.Territory;
 import com.Lino.territoryBeacons.TerritoryBeacons;
 import com.Lino.territoryBeacons.managers.ConfigManager;
 import com.Lino.territoryBeacons.managers.MessageManager;
 import com.Lino.territoryBeacons.managers.PlayerManager;
 import com.Lino.territoryBeacons.managers.TerritoryManager;
+import com.Lino.territoryBeacons.util.InteractionRule;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
-import org.bukkit.block.Container;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Monster;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
@@ -23,9 +25,13 @@ import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.entity.EntitySpawnEvent;
 import org.bukkit.event.entity.FoodLevelChangeEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
 
 public class TerritoryListener implements Listener {
 
@@ -78,7 +84,7 @@ public class TerritoryListener implements Listener {
         Territory territory = territoryManager.getTerritoryByLocation(event.getBlock().getLocation());
         if (territory != null) {
             Player breaker = event.getPlayer();
-            if (!territory.getOwnerUUID().equals(breaker.getUniqueId()) && !breaker.hasPermission("territory.admin")) {
+            if (!territory.getOwnerUUID().equals(breaker.getUniqueId()) && !playerManager.getSession(breaker).isAdmin()) {
                 breaker.sendMessage(messageManager.get("cannot-break-beacon"));
                 event.setCancelled(true);
                 return;
@@ -91,14 +97,14 @@ public class TerritoryListener implements Listener {
     public void onBlockBreak(BlockBreakEvent event) {
         if (event.getBlock().getType() == Material.BEACON) return;
 
-        Territory territory = territoryManager.getTerritoryAt(event.getBlock().getLocation());
+        Territory territory = territoryManager.getTerritoryAt(event.getBlock());
         if (territory != null) {
             if (territory.getBorderBlocks().contains(event.getBlock().getLocation())) {
                 event.getPlayer().sendMessage(messageManager.get("cannot-break-boundaries"));
                 event.setCancelled(true);
                 return;
             }
-            if (!territory.canBuild(event.getPlayer())) {
+            if (!playerManager.getSession(event.getPlayer()).canBuild(territory)) {
                 event.getPlayer().sendMessage(messageManager.get("cannot-destroy-here", "%owner%", territory.getOwnerName()));
                 event.setCancelled(true);
             }
@@ -109,8 +115,8 @@ public class TerritoryListener implements Listener {
     public void onBlockPlace(BlockPlaceEvent event) {
         if (event.getBlock().getType() == Material.BEACON) return;
 
-        Territory territory = territoryManager.getTerritoryAt(event.getBlock().getLocation());
-        if (territory != null && !territory.canBuild(event.getPlayer())) {
+        Territory territory = territoryManager.getTerritoryAt(event.getBlock());
+        if (territory != null && !playerManager.getSession(event.getPlayer()).canBuild(territory)) {
             event.getPlayer().sendMessage(messageManager.get("cannot-build-here", "%owner%", territory.getOwnerName()));
             event.setCancelled(true);
         }
@@ -139,12 +145,15 @@ public class TerritoryListener implements Listener {
             return;
         }
 
-        if (configManager.shouldProtectContainers() && block.getState() instanceof Container) {
-            Territory territory = territoryManager.getTerritoryAt(block.getLocation());
-            if (territory != null && !territory.canBuild(player)) {
-                player.sendMessage(messageManager.get("cannot-access-containers", "%owner%", territory.getOwnerName()));
-                event.setCancelled(true);
+        InteractionRule rule = configManager.getInteractionRule(block.getType());
+        if (rule == null) return;
+
+        Territory territory = territoryManager.getTerritoryAt(block);
+        if (territory != null && !playerManager.getSession(player).canBuild(territory)) {
+            if (event.getAction() != Action.PHYSICAL) {
+                player.sendMessage(messageManager.get(rule.getMessageKey(), "%owner%", territory.getOwnerName()));
             }
+            event.setCancelled(true);
         }
     }
 
@@ -179,7 +188,7 @@ public class TerritoryListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onEntityExplode(EntityExplodeEvent event) {
         if (!configManager.shouldPreventExplosions()) return;
-        event.blockList().removeIf(b -> territoryManager.getTerritoryAt(b.getLocation()) != null);
+        event.blockList().removeIf(b -> territoryManager.getTerritoryAt(b) != null);
     }
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
@@ -187,28 +196,57 @@ public class TerritoryListener implements Listener {
         if (!(event.getEntity() instanceof Player)) return;
 
         Player player = (Player) event.getEntity();
-        Territory territory = territoryManager.getTerritoryAt(player.getLocation());
-        if (territory != null && territory.hasEffect("saturation")) {
-            if (territory.canBuild(player)) { // Apply to owner and trusted
-                event.setCancelled(true);
-                player.setFoodLevel(20);
-                player.setSaturation(10f);
-            }
+        PlayerSession session = playerManager.getSession(player);
+        Territory territory = session.getCurrentTerritory();
+        if (territory != null && session.canBuildInCurrentTerritory() && territory.hasEffect("saturation")) {
+            event.setCancelled(true);
+            player.setFoodLevel(20);
+            player.setSaturation(10f);
         }
     }
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         playerManager.onPlayerJoin(event.getPlayer());
+        plugin.getTaskManager().startPlayerTasks(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        playerManager.refreshSession(event.getPlayer());
+        playerManager.checkPlayerTerritory(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        Player player = event.getPlayer();
+        plugin.getPluginScheduler().runFor(player, () -> {
+            playerManager.checkPlayerTerritory(player);
+            plugin.getEffectManager().reapplyEffects(player);
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMilkConsume(PlayerItemConsumeEvent event) {
+        if (event.getItem().getType() != Material.MILK_BUCKET) return;
+        Player player = event.getPlayer();
+        plugin.getPluginScheduler().runFor(player, () -> plugin.getEffectManager().reapplyEffects(player));
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         playerManager.onPlayerQuit(event.getPlayer());
+        plugin.getTaskManager().stopPlayerTasks(event.getPlayer());
+        plugin.getTerritoryGUI().clearOpenMenu(event.getPlayer());
     }
 
     @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
         plugin.getTerritoryGUI().handleInventoryClick(event);
     }
+
+    @EventHandler
+    public void onInventoryClose(InventoryCloseEvent event) {
+        plugin.getTerritoryGUI().handleInventoryClose(event);
+    }
 }
\ No newline at end of file
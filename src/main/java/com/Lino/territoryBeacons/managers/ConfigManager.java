@@ -1,109 +1,111 @@
 package com.Lino.territoryBeacons.managers;
 
 import com.Lino.territoryBeacons.TerritoryBeacons;
-import org.bukkit.configuration.file.FileConfiguration;
-import java.util.HashMap;
-import java.util.Map;
+import com.Lino.territoryBeacons.util.InteractionRule;
+import org.bukkit.Material;
 
 public class ConfigManager {
 
     private final TerritoryBeacons plugin;
-    private int decayTime;
-    private int minimumBeaconDistance;
-    private int maxTerritoriesPerPlayer;
-    private boolean protectContainers;
-    private boolean preventExplosions;
-    private String costType;
-    private double upgradeCostMultiplier;
-    private final Map<Integer, Integer> tierRadii = new HashMap<>();
-    private final Map<String, Integer> upgradeCosts = new HashMap<>();
-    private final Map<String, Double> effectCosts = new HashMap<>();
-    private int maxTiers;
+    private volatile ConfigSnapshot snapshot;
 
     public ConfigManager(TerritoryBeacons plugin) {
         this.plugin = plugin;
         loadConfigValues();
     }
 
-    public void loadConfigValues() {
+    // The new snapshot is built completely before it replaces the old one, so readers never see a
+    // half-loaded config and a broken edit leaves the running values in place
+    public boolean loadConfigValues() {
         plugin.saveDefaultConfig();
         plugin.reloadConfig();
 
-        FileConfiguration config = plugin.getConfig();
-        decayTime = config.getInt("decay-time-hours", 160);
-        minimumBeaconDistance = config.getInt("advanced.minimum-beacon-distance", 260);
-        maxTerritoriesPerPlayer = config.getInt("advanced.max-territories-per-player", 1);
-        protectContainers = config.getBoolean("advanced.protect-containers", true);
-        preventExplosions = config.getBoolean("advanced.prevent-explosions", true);
-        costType = config.getString("economy.cost-type", "BOTH").toUpperCase();
-        upgradeCostMultiplier = config.getDouble("economy.upgrade-cost-multiplier", 100.0);
-
-        tierRadii.clear();
-        upgradeCosts.clear();
-        maxTiers = 0;
-        if (config.isConfigurationSection("tiers")) {
-            for (String key : config.getConfigurationSection("tiers").getKeys(false)) {
-                maxTiers++;
-                int tier = Integer.parseInt(key.split("-")[1]);
-                int radius = config.getInt("tiers." + key + ".radius");
-                tierRadii.put(tier, radius);
-                if (tier > 1) {
-                    int cost = config.getInt("tiers." + key + ".upgrade-cost");
-                    upgradeCosts.put((tier - 1) + "-" + tier, cost);
-                }
-            }
+        ConfigSnapshot loaded;
+        try {
+            loaded = ConfigSnapshot.load(plugin.getConfig());
+        } catch (RuntimeException e) {
+            if (snapshot == null) throw e;
+            plugin.getLogger().warning("Could not reload config.yml, keeping the previous values: " + e.getMessage());
+            return false;
         }
+        snapshot = loaded;
+        plugin.getMetrics().setEnabled(loaded.isMetricsEnabled());
+        return true;
+    }
 
-
-        effectCosts.clear();
-        if (config.isConfigurationSection("effects")) {
-            for (String effect : config.getConfigurationSection("effects").getKeys(false)) {
-                effectCosts.put(effect, config.getDouble("effects." + effect + ".cost"));
-            }
-        }
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
     }
 
     public int getDecayTime() {
-        return decayTime;
+        return snapshot.getDecayTime();
     }
 
     public int getMinimumBeaconDistance() {
-        return minimumBeaconDistance;
+        return snapshot.getMinimumBeaconDistance();
     }
 
     public int getMaxTerritoriesPerPlayer() {
-        return maxTerritoriesPerPlayer;
+        return snapshot.getMaxTerritoriesPerPlayer();
     }
 
     public boolean shouldProtectContainers() {
-        return protectContainers;
+        return snapshot.shouldProtectContainers();
+    }
+
+    public InteractionRule getInteractionRule(Material material) {
+        return snapshot.getInteractionRule(material);
     }
 
     public boolean shouldPreventExplosions() {
-        return preventExplosions;
+        return snapshot.shouldPreventExplosions();
     }
 
     public String getCostType() {
-        return costType;
+        return snapshot.getCostType();
     }
 
     public double getUpgradeCostMultiplier() {
-        return upgradeCostMultiplier;
+        return snapshot.getUpgradeCostMultiplier();
+    }
+
+    public long getEconomyTimeoutMillis() {
+        return snapshot.getEconomyTimeoutMillis();
     }
 
     public int getRadiusForTier(int tier) {
-        return tierRadii.getOrDefault(tier, 16);
+        return snapshot.getRadiusForTier(tier);
     }
 
     public int getUpgradeCost(int fromTier, int toTier) {
-        return upgradeCosts.getOrDefault(fromTier + "-" + toTier, 0);
+        return snapshot.getUpgradeCost(fromTier, toTier);
     }
 
     public double getEffectCost(String effect) {
-        return effectCosts.getOrDefault(effect, 0.0);
+        return snapshot.getEffectCost(effect);
     }
 
     public int getMaxTiers() {
-        return maxTiers;
+        return snapshot.getMaxTiers();
+    }
+
+    public double getTickBudgetMillis() {
+        return snapshot.getTickBudgetMillis();
+    }
+
+    public double getJobBudgetMillis(String job, double defaultBudget) {
+        return snapshot.getJobBudgetMillis(job, defaultBudget);
+    }
+
+    public boolean isMetricsEnabled() {
+        return snapshot.isMetricsEnabled();
+    }
+
+    public int getMetricsExportIntervalSeconds() {
+        return snapshot.getMetricsExportIntervalSeconds();
+    }
+
+    public String getMetricsExportFile() {
+        return snapshot.getMetricsExportFile();
     }
-}
\ No newline at end of file
+}
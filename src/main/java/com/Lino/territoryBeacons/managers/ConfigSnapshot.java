@@ -0,0 +1,195 @@
+package com.Lino.territoryBeacons.managers;
+
+import com.Lino.territoryBeacons.util.InteractionRule;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// One parsed copy of config.yml. Never modified after load, so any thread can read it while a
+// reload builds the next one.
+public final class ConfigSnapshot {
+
+    private static final int DEFAULT_RADIUS = 16;
+
+    private final int decayTime;
+    private final int minimumBeaconDistance;
+    private final int maxTerritoriesPerPlayer;
+    private final boolean protectContainers;
+    private final boolean preventExplosions;
+    private final String costType;
+    private final double upgradeCostMultiplier;
+    private final long economyTimeoutMillis;
+    // Indexed by tier; upgradeCosts[t] is the price of going from t - 1 to t
+    private final int[] tierRadii;
+    private final int[] upgradeCosts;
+    private final int maxTiers;
+    private final Map<String, Double> effectCosts;
+    private final Map<Material, InteractionRule> interactionRules;
+    private final double tickBudgetMillis;
+    private final Map<String, Double> jobBudgets;
+    private final boolean metricsEnabled;
+    private final int metricsExportIntervalSeconds;
+    private final String metricsExportFile;
+
+    private ConfigSnapshot(FileConfiguration config) {
+        decayTime = config.getInt("decay-time-hours", 160);
+        minimumBeaconDistance = config.getInt("advanced.minimum-beacon-distance", 260);
+        maxTerritoriesPerPlayer = config.getInt("advanced.max-territories-per-player", 1);
+        protectContainers = config.getBoolean("advanced.protect-containers", true);
+        preventExplosions = config.getBoolean("advanced.prevent-explosions", true);
+        costType = config.getString("economy.cost-type", "BOTH").toUpperCase();
+        upgradeCostMultiplier = config.getDouble("economy.upgrade-cost-multiplier", 100.0);
+        economyTimeoutMillis = Math.max(100L, config.getLong("economy.timeout-ms", 3000L));
+
+        Map<Integer, Integer> radii = new HashMap<>();
+        Map<Integer, Integer> costs = new HashMap<>();
+        int highestTier = 0;
+        if (config.isConfigurationSection("tiers")) {
+            for (String key : config.getConfigurationSection("tiers").getKeys(false)) {
+                int tier = parseTier(key);
+                radii.put(tier, config.getInt("tiers." + key + ".radius"));
+                if (tier > 1) {
+                    costs.put(tier, config.getInt("tiers." + key + ".upgrade-cost"));
+                }
+                highestTier = Math.max(highestTier, tier);
+            }
+        }
+        maxTiers = radii.size();
+        tierRadii = new int[highestTier + 1];
+        upgradeCosts = new int[highestTier + 1];
+        for (int tier = 0; tier <= highestTier; tier++) {
+            tierRadii[tier] = radii.getOrDefault(tier, DEFAULT_RADIUS);
+            upgradeCosts[tier] = costs.getOrDefault(tier, 0);
+        }
+
+        Map<Material, InteractionRule> rules = new EnumMap<>(Material.class);
+        for (InteractionRule rule : InteractionRule.values()) {
+            boolean defaultValue = rule == InteractionRule.CONTAINERS && protectContainers;
+            if (config.getBoolean("advanced.protected-interactions." + rule.getConfigKey(), defaultValue)) {
+                for (Material material : rule.getMaterials()) {
+                    rules.putIfAbsent(material, rule);
+                }
+            }
+        }
+        interactionRules = Collections.unmodifiableMap(rules);
+
+        tickBudgetMillis = config.getDouble("performance.tick-budget-ms", 2.0);
+        Map<String, Double> budgets = new HashMap<>();
+        if (config.isConfigurationSection("performance.job-budgets-ms")) {
+            for (String job : config.getConfigurationSection("performance.job-budgets-ms").getKeys(false)) {
+                budgets.put(job, config.getDouble("performance.job-budgets-ms." + job));
+            }
+        }
+        jobBudgets = Map.copyOf(budgets);
+
+        metricsEnabled = config.getBoolean("metrics.enabled", false);
+        metricsExportIntervalSeconds = Math.max(0, config.getInt("metrics.export-interval-seconds", 15));
+        metricsExportFile = config.getString("metrics.export-file", "metrics.prom");
+
+        Map<String, Double> effects = new HashMap<>();
+        if (config.isConfigurationSection("effects")) {
+            for (String effect : config.getConfigurationSection("effects").getKeys(false)) {
+                effects.put(effect, config.getDouble("effects." + effect + ".cost"));
+            }
+        }
+        effectCosts = Map.copyOf(effects);
+    }
+
+    static ConfigSnapshot load(FileConfiguration config) {
+        return new ConfigSnapshot(config);
+    }
+
+    private static int parseTier(String key) {
+        int dash = key.lastIndexOf('-');
+        try {
+            int tier = Integer.parseInt(key.substring(dash + 1));
+            if (tier > 0) return tier;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Invalid tier key '" + key + "', expected tier-<number>");
+    }
+
+    public int getDecayTime() {
+        return decayTime;
+    }
+
+    public int getMinimumBeaconDistance() {
+        return minimumBeaconDistance;
+    }
+
+    public int getMaxTerritoriesPerPlayer() {
+        return maxTerritoriesPerPlayer;
+    }
+
+    public boolean shouldProtectContainers() {
+        return protectContainers;
+    }
+
+    public InteractionRule getInteractionRule(Material material) {
+        return interactionRules.get(material);
+    }
+
+    public boolean shouldPreventExplosions() {
+        return preventExplosions;
+    }
+
+    public String getCostType() {
+        return costType;
+    }
+
+    public double getUpgradeCostMultiplier() {
+        return upgradeCostMultiplier;
+    }
+
+    public long getEconomyTimeoutMillis() {
+        return economyTimeoutMillis;
+    }
+
+    public int getRadiusForTier(int tier) {
+        return tier >= 0 && tier < tierRadii.length ? tierRadii[tier] : DEFAULT_RADIUS;
+    }
+
+    public int getUpgradeCost(int fromTier, int toTier) {
+        return toTier == fromTier + 1 && toTier < upgradeCosts.length ? upgradeCosts[toTier] : 0;
+    }
+
+    public double getEffectCost(String effect) {
+        return effectCosts.getOrDefault(effect, 0.0);
+    }
+
+    public int getMaxTiers() {
+        return maxTiers;
+    }
+
+    public double getTickBudgetMillis() {
+        return tickBudgetMillis;
+    }
+
+    public double getJobBudgetMillis(String job, double defaultBudget) {
+        return jobBudgets.getOrDefault(job, defaultBudget);
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public int getMetricsExportIntervalSeconds() {
+        return metricsExportIntervalSeconds;
+    }
+
+    public String getMetricsExportFile() {
+        return metricsExportFile;
+    }
+
+    public boolean hasSameRadii(ConfigSnapshot other) {
+        int tiers = Math.max(tierRadii.length, other.tierRadii.length);
+        for (int tier = 1; tier < tiers; tier++) {
+            if (getRadiusForTier(tier) != other.getRadiusForTier(tier)) return false;
+        }
+        return true;
+    }
+}
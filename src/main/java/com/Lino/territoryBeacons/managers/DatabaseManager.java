@@ -2,28 +2,66 @@ package com.Lino.territoryBeacons.managers;
 
 import com.Lino.territoryBeacons.Territory;
 import com.Lino.territoryBeacons.TerritoryBeacons;
+import com.Lino.territoryBeacons.jfr.DatabaseOperationEvent;
+import com.Lino.territoryBeacons.metrics.LatencyHistogram;
+import com.Lino.territoryBeacons.metrics.MetricFamily;
+import com.Lino.territoryBeacons.metrics.Metrics;
+import com.Lino.territoryBeacons.tasks.IoExecutor;
+import com.Lino.territoryBeacons.tasks.IoLane;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 
 import java.io.File;
 import java.sql.*;
+import java.util.Collection;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
 import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class DatabaseManager {
 
-    private final TerritoryBeacons plugin;
+    private final File dataFolder;
+    private final Logger logger;
+    private final IoExecutor ioExecutor;
+    private final Function<String, World> worldResolver;
+    private final Metrics metrics;
+    private final LatencyHistogram insertTiming;
+    private final LatencyHistogram updateTiming;
+    private final LatencyHistogram saveAllTiming;
+    private final LatencyHistogram deleteTiming;
+    private final LatencyHistogram savePlayersTiming;
+    private final LatencyHistogram cleanPlayersTiming;
+    private final LatencyHistogram lastSeenTiming;
     private Connection database;
 
     public DatabaseManager(TerritoryBeacons plugin) {
-        this.plugin = plugin;
+        this(plugin.getDataFolder(), plugin.getLogger(), plugin.getIoExecutor(), Bukkit::getWorld, plugin.getMetrics());
     }
 
-    public void initDatabase() {
+    // Standalone form for tools and benchmarks that run without a server
+    public DatabaseManager(File dataFolder, Logger logger, IoExecutor ioExecutor, Function<String, World> worldResolver, Metrics metrics) {
+        this.dataFolder = dataFolder;
+        this.logger = logger;
+        this.ioExecutor = ioExecutor;
+        this.worldResolver = worldResolver;
+        this.metrics = metrics;
+        this.insertTiming = metrics.histogram(MetricFamily.DATABASE, "insert_territory");
+        this.updateTiming = metrics.histogram(MetricFamily.DATABASE, "update_territory");
+        this.saveAllTiming = metrics.histogram(MetricFamily.DATABASE, "save_all_territories");
+        this.deleteTiming = metrics.histogram(MetricFamily.DATABASE, "delete_territory");
+        this.savePlayersTiming = metrics.histogram(MetricFamily.DATABASE, "save_player_data");
+        this.cleanPlayersTiming = metrics.histogram(MetricFamily.DATABASE, "clean_player_data");
+        this.lastSeenTiming = metrics.histogram(MetricFamily.DATABASE, "load_last_seen");
+    }
+
+    public boolean initDatabase() {
         try {
-            File dataFolder = plugin.getDataFolder();
             if (!dataFolder.exists()) {
                 dataFolder.mkdirs();
             }
@@ -50,14 +88,30 @@ public class DatabaseManager {
                         "PRIMARY KEY(territory_id, effect_name))");
 
                 stmt.execute("CREATE TABLE IF NOT EXISTS player_data (" +
-                        "player_uuid TEXT PRIMARY KEY, last_seen INTEGER NOT NULL)");
+                        "player_uuid TEXT PRIMARY KEY, last_seen INTEGER NOT NULL, last_name TEXT)");
+
+                if (!hasColumn(stmt, "player_data", "last_name")) {
+                    stmt.execute("ALTER TABLE player_data ADD COLUMN last_name TEXT");
+                }
 
                 stmt.execute("PRAGMA foreign_keys = ON;");
             }
+            return true;
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to initialize database", e);
-            plugin.getServer().getPluginManager().disablePlugin(plugin);
+            logger.log(Level.SEVERE, "Failed to initialize database", e);
+            return false;
+        }
+    }
+
+    private boolean hasColumn(Statement stmt, String table, String column) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
         }
+        return false;
     }
 
     public void closeConnection() {
@@ -66,21 +120,26 @@ public class DatabaseManager {
                 database.close();
             }
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error closing database connection", e);
+            logger.log(Level.SEVERE, "Error closing database connection", e);
         }
     }
 
-    public void loadTerritories(TerritoryManager territoryManager) {
+    public void loadTerritories(Consumer<Territory> sink) {
+        timed(metrics.histogram(MetricFamily.DATABASE, "load_territories"), () -> readTerritories(sink));
+    }
+
+    private int readTerritories(Consumer<Territory> sink) {
         String sql = "SELECT * FROM territories";
+        int rows = 0;
         try (Statement stmt = database.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 UUID ownerUUID = UUID.fromString(rs.getString("owner_uuid"));
                 String ownerName = rs.getString("owner_name");
                 String territoryName = rs.getString("territory_name");
                 String worldName = rs.getString("world");
-                World world = Bukkit.getWorld(worldName);
+                World world = worldResolver.apply(worldName);
                 if (world == null) {
-                    plugin.getLogger().warning("World " + worldName + " not found, skipping territory.");
+                    logger.warning("World " + worldName + " not found, skipping territory.");
                     continue;
                 }
                 Location loc = new Location(world, rs.getInt("x"), rs.getInt("y"), rs.getInt("z"));
@@ -100,12 +159,13 @@ public class DatabaseManager {
                 loadTrustedPlayers(territory, id);
                 loadTerritoryEffects(territory, id);
 
-                territoryManager.addTerritory(loc, territory);
-                territoryManager.createTerritoryBorder(loc, territory);
+                sink.accept(territory);
+                rows++;
             }
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error loading territories", e);
+            logger.log(Level.SEVERE, "Error loading territories", e);
         }
+        return rows;
     }
 
     private void loadTrustedPlayers(Territory territory, int territoryId) throws SQLException {
@@ -138,19 +198,127 @@ public class DatabaseManager {
     }
 
     public void loadPlayerData(PlayerManager playerManager) {
-        String sql = "SELECT * FROM player_data";
+        timed(metrics.histogram(MetricFamily.DATABASE, "load_player_data"), () -> readPlayerData(playerManager));
+    }
+
+    private int readPlayerData(PlayerManager playerManager) {
+        String sql = "SELECT p.player_uuid, p.last_seen, p.last_name FROM player_data p " +
+                "JOIN (SELECT owner_uuid AS player_uuid FROM territories UNION SELECT player_uuid FROM trusted_players) r " +
+                "ON r.player_uuid = p.player_uuid";
+        int rows = 0;
         try (Statement stmt = database.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 UUID playerUUID = UUID.fromString(rs.getString("player_uuid"));
-                long lastSeen = rs.getLong("last_seen");
-                playerManager.updatePlayerLastSeen(playerUUID, lastSeen);
+                playerManager.loadPlayerRecord(playerUUID, rs.getLong("last_seen"), rs.getString("last_name"));
+                rows++;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Error loading player data", e);
+        }
+        return rows;
+    }
+
+    public CompletableFuture<Long> loadPlayerLastSeen(UUID playerUUID, long defaultValue) {
+        long[] lastSeen = {defaultValue};
+        return submitTimed(lastSeenTiming, () -> readPlayerLastSeen(playerUUID, lastSeen)).thenApply(ignored -> lastSeen[0]);
+    }
+
+    private int readPlayerLastSeen(UUID playerUUID, long[] lastSeen) {
+        String sql = "SELECT last_seen FROM player_data WHERE player_uuid = ?";
+        try (PreparedStatement stmt = database.prepareStatement(sql)) {
+            stmt.setString(1, playerUUID.toString());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    lastSeen[0] = rs.getLong("last_seen");
+                    return 1;
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Error loading player data", e);
+        }
+        return 0;
+    }
+
+    public CompletableFuture<Void> saveTerritoryToDatabase(Territory territory) {
+        return submitTimed(insertTiming, () -> insertTerritory(territory));
+    }
+
+    public CompletableFuture<Void> updateTerritoryInDatabase(Territory territory) {
+        return submitTimed(updateTiming, () -> writeTerritory(territory));
+    }
+
+    // One job and one transaction for the whole set, so the save on disable pays for a single commit
+    public CompletableFuture<Void> saveAllTerritories(Collection<Territory> territories) {
+        return submitTimed(saveAllTiming, () -> inTransaction(() -> {
+            int rows = 0;
+            for (Territory territory : territories) {
+                rows += writeTerritory(territory);
+            }
+            return rows;
+        }));
+    }
+
+    public CompletableFuture<Void> removeTerritoryFromDatabase(Territory territory) {
+        return submitTimed(deleteTiming, () -> deleteTerritory(territory));
+    }
+
+    public CompletableFuture<Void> saveAllPlayerData(Map<UUID, Long> playerLastSeenMap, Map<UUID, String> playerNameMap) {
+        return submitTimed(savePlayersTiming, () -> inTransaction(() -> writePlayerData(playerLastSeenMap, playerNameMap)));
+    }
+
+    public CompletableFuture<Void> cleanOldPlayerData(long timeThreshold) {
+        return submitTimed(cleanPlayersTiming, () -> deleteOldPlayerData(timeThreshold));
+    }
+
+    // Timed on the lane thread, so the histogram shows statement time rather than queueing time
+    private CompletableFuture<Void> submitTimed(LatencyHistogram histogram, IntSupplier statement) {
+        return ioExecutor.submit(IoLane.DATABASE, () -> timed(histogram, statement));
+    }
+
+    private void timed(LatencyHistogram histogram, IntSupplier statement) {
+        DatabaseOperationEvent event = new DatabaseOperationEvent();
+        event.begin();
+        long start = metrics.start();
+        try {
+            event.rows = statement.getAsInt();
+        } finally {
+            histogram.stop(start);
+            if (event.shouldCommit()) {
+                event.statement = histogram.getLabel();
+                event.commit();
             }
+        }
+    }
+
+    private int inTransaction(IntSupplier statements) {
+        try {
+            database.setAutoCommit(false);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not start a transaction", e);
+            return statements.getAsInt();
+        }
+        try {
+            int rows = statements.getAsInt();
+            database.commit();
+            return rows;
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error loading player data", e);
+            logger.log(Level.SEVERE, "Error committing transaction", e);
+            try {
+                database.rollback();
+            } catch (SQLException rollbackError) {
+                logger.log(Level.SEVERE, "Error rolling back transaction", rollbackError);
+            }
+            return 0;
+        } finally {
+            try {
+                database.setAutoCommit(true);
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "Could not restore auto-commit", e);
+            }
         }
     }
 
-    public void saveTerritoryToDatabase(Territory territory) {
+    private int insertTerritory(Territory territory) {
         String sql = "INSERT INTO territories (owner_uuid, owner_name, territory_name, world, x, y, z, radius, tier, influence, pvp_enabled, mob_spawning_enabled, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         try (PreparedStatement stmt = database.prepareStatement(sql)) {
             Location loc = territory.getBeaconLocation();
@@ -167,13 +335,14 @@ public class DatabaseManager {
             stmt.setBoolean(11, territory.isPvpEnabled());
             stmt.setBoolean(12, territory.isMobSpawningEnabled());
             stmt.setLong(13, System.currentTimeMillis());
-            stmt.executeUpdate();
+            return stmt.executeUpdate();
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error saving territory", e);
+            logger.log(Level.SEVERE, "Error saving territory", e);
+            return 0;
         }
     }
 
-    public void updateTerritoryInDatabase(Territory territory) {
+    private int writeTerritory(Territory territory) {
         String sql = "UPDATE territories SET influence = ?, radius = ?, tier = ?, territory_name = ?, pvp_enabled = ?, mob_spawning_enabled = ? WHERE owner_uuid = ? AND world = ? AND x = ? AND y = ? AND z = ?";
         try (PreparedStatement stmt = database.prepareStatement(sql)) {
             Location loc = territory.getBeaconLocation();
@@ -188,15 +357,17 @@ public class DatabaseManager {
             stmt.setInt(9, loc.getBlockX());
             stmt.setInt(10, loc.getBlockY());
             stmt.setInt(11, loc.getBlockZ());
-            stmt.executeUpdate();
+            int rows = stmt.executeUpdate();
 
             int territoryId = getTerritoryId(territory);
             if (territoryId != -1) {
-                updateTrustedPlayers(territory, territoryId);
-                updateTerritoryEffects(territory, territoryId);
+                rows += updateTrustedPlayers(territory, territoryId);
+                rows += updateTerritoryEffects(territory, territoryId);
             }
+            return rows;
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error updating territory", e);
+            logger.log(Level.SEVERE, "Error updating territory", e);
+            return 0;
         }
     }
 
@@ -218,7 +389,7 @@ public class DatabaseManager {
         return -1;
     }
 
-    private void updateTrustedPlayers(Territory territory, int territoryId) throws SQLException {
+    private int updateTrustedPlayers(Territory territory, int territoryId) throws SQLException {
         String deleteSql = "DELETE FROM trusted_players WHERE territory_id = ?";
         try (PreparedStatement stmt = database.prepareStatement(deleteSql)) {
             stmt.setInt(1, territoryId);
@@ -232,11 +403,11 @@ public class DatabaseManager {
                 stmt.setString(2, trustedUUID.toString());
                 stmt.addBatch();
             }
-            stmt.executeBatch();
+            return sum(stmt.executeBatch());
         }
     }
 
-    private void updateTerritoryEffects(Territory territory, int territoryId) throws SQLException {
+    private int updateTerritoryEffects(Territory territory, int territoryId) throws SQLException {
         String deleteSql = "DELETE FROM territory_effects WHERE territory_id = ?";
         try (PreparedStatement stmt = database.prepareStatement(deleteSql)) {
             stmt.setInt(1, territoryId);
@@ -251,11 +422,11 @@ public class DatabaseManager {
                 stmt.setInt(3, territory.hasEffect(effect) ? 1 : 0);
                 stmt.addBatch();
             }
-            stmt.executeBatch();
+            return sum(stmt.executeBatch());
         }
     }
 
-    public void removeTerritoryFromDatabase(Territory territory) {
+    private int deleteTerritory(Territory territory) {
         String sql = "DELETE FROM territories WHERE owner_uuid = ? AND world = ? AND x = ? AND y = ? AND z = ?";
         try (PreparedStatement stmt = database.prepareStatement(sql)) {
             Location loc = territory.getBeaconLocation();
@@ -264,36 +435,54 @@ public class DatabaseManager {
             stmt.setInt(3, loc.getBlockX());
             stmt.setInt(4, loc.getBlockY());
             stmt.setInt(5, loc.getBlockZ());
-            stmt.executeUpdate();
+            return stmt.executeUpdate();
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error removing territory", e);
+            logger.log(Level.SEVERE, "Error removing territory", e);
+            return 0;
         }
     }
 
-    public void saveAllPlayerData(Map<UUID, Long> playerLastSeenMap) {
-        String sql = "INSERT OR REPLACE INTO player_data (player_uuid, last_seen) VALUES (?, ?)";
+    private int writePlayerData(Map<UUID, Long> playerLastSeenMap, Map<UUID, String> playerNameMap) {
+        String sql = "INSERT INTO player_data (player_uuid, last_seen, last_name) VALUES (?, ?, ?) " +
+                "ON CONFLICT(player_uuid) DO UPDATE SET last_seen = excluded.last_seen, " +
+                "last_name = COALESCE(excluded.last_name, player_data.last_name)";
         try (PreparedStatement stmt = database.prepareStatement(sql)) {
             for (Map.Entry<UUID, Long> entry : playerLastSeenMap.entrySet()) {
                 stmt.setString(1, entry.getKey().toString());
                 stmt.setLong(2, entry.getValue());
+                stmt.setString(3, playerNameMap.get(entry.getKey()));
                 stmt.addBatch();
             }
-            stmt.executeBatch();
+            return sum(stmt.executeBatch());
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error saving player data", e);
+            logger.log(Level.SEVERE, "Error saving player data", e);
+            return 0;
         }
     }
 
-    public void cleanOldPlayerData(long timeThreshold) {
-        String sql = "DELETE FROM player_data WHERE last_seen < ?";
+    private int deleteOldPlayerData(long timeThreshold) {
+        String sql = "DELETE FROM player_data WHERE last_seen < ? " +
+                "AND player_uuid NOT IN (SELECT owner_uuid FROM territories) " +
+                "AND player_uuid NOT IN (SELECT player_uuid FROM trusted_players)";
         try (PreparedStatement stmt = database.prepareStatement(sql)) {
             stmt.setLong(1, timeThreshold);
             int rows = stmt.executeUpdate();
             if (rows > 0) {
-                plugin.getLogger().info("Cleaned up " + rows + " old player data entries.");
+                logger.info("Cleaned up " + rows + " old player data entries.");
             }
+            return rows;
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error cleaning old player data", e);
+            logger.log(Level.SEVERE, "Error cleaning old player data", e);
+            return 0;
+        }
+    }
+
+    // Drivers may report SUCCESS_NO_INFO (-2) for a batch entry; count those as one row
+    private static int sum(int[] counts) {
+        int rows = 0;
+        for (int count : counts) {
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
         }
+        return rows;
     }
 }
\ No newline at end of file
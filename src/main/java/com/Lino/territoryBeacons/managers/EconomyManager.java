@@ -1,13 +1,34 @@
 package com.Lino.territoryBeacons.managers;
 
 import com.Lino.territoryBeacons.TerritoryBeacons;
+import com.Lino.territoryBeacons.jfr.EconomyCallEvent;
+import com.Lino.territoryBeacons.tasks.IoLane;
 import net.milkbowl.vault.economy.Economy;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.RegisteredServiceProvider;
 
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
 public class EconomyManager {
 
+    public enum Result {
+        SUCCESS,
+        INSUFFICIENT_FUNDS,
+        TIMED_OUT,
+        FAILED,
+        BUSY,
+        UNAVAILABLE
+    }
+
     private final TerritoryBeacons plugin;
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
     private Economy economy = null;
 
     public EconomyManager(TerritoryBeacons plugin) {
@@ -30,18 +51,109 @@ public class EconomyManager {
         return economy != null;
     }
 
-    public boolean hasEnough(Player player, double amount) {
-        if (!isEnabled()) return false;
-        return economy.has(player, amount);
+    public boolean isBusy(Player player) {
+        return inFlight.contains(player.getUniqueId());
+    }
+
+    // Withdraws on the economy lane, then hands the result to onComplete on the player's thread.
+    // Vault does not promise that withdraw refuses to overdraw, so has() is checked first; the lane
+    // runs one job at a time, so no other charge from this plugin can land in between.
+    // onComplete returns whether the purchase was applied; a successful charge it did not use is
+    // refunded, as is one that lands after the timeout or after the player has left. One charge per
+    // player is in flight at a time, so double clicks are answered with BUSY. A timeout only answers
+    // the player: the slot stays taken until the lane has finished with the withdrawal.
+    public void charge(Player player, double amount, Predicate<Result> onComplete) {
+        if (!isEnabled()) {
+            onComplete.test(Result.UNAVAILABLE);
+            return;
+        }
+        UUID playerUUID = player.getUniqueId();
+        if (!inFlight.add(playerUUID)) {
+            onComplete.test(Result.BUSY);
+            return;
+        }
+
+        AtomicBoolean settled = new AtomicBoolean();
+        plugin.getIoExecutor().submit(IoLane.ECONOMY, () -> {
+            boolean success = economy.has(player, amount) && withdraw(player, amount);
+            if (settled.compareAndSet(false, true)) {
+                complete(player, amount, success ? Result.SUCCESS : Result.INSUFFICIENT_FUNDS, onComplete, true);
+                return;
+            }
+            // The player was already told the payment timed out
+            if (success) {
+                deposit(player, amount);
+            }
+            inFlight.remove(playerUUID);
+        }).exceptionally(error -> {
+            if (settled.compareAndSet(false, true)) {
+                complete(player, amount, Result.FAILED, onComplete, true);
+            } else {
+                inFlight.remove(playerUUID);
+            }
+            return null;
+        });
+
+        CompletableFuture.delayedExecutor(plugin.getConfigManager().getEconomyTimeoutMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (settled.compareAndSet(false, true)) {
+                complete(player, amount, Result.TIMED_OUT, onComplete, false);
+            }
+        });
     }
 
-    public boolean withdraw(Player player, double amount) {
-        if (!isEnabled()) return false;
-        return economy.withdrawPlayer(player, amount).transactionSuccess();
+    public void refund(OfflinePlayer player, double amount) {
+        plugin.getIoExecutor().submit(IoLane.ECONOMY, () -> deposit(player, amount));
+    }
+
+    private void complete(Player player, double amount, Result result, Predicate<Result> onComplete, boolean release) {
+        UUID playerUUID = player.getUniqueId();
+        plugin.getPluginScheduler().runFor(player, () -> {
+            boolean applied = false;
+            try {
+                applied = onComplete.test(result);
+            } finally {
+                if (release) inFlight.remove(playerUUID);
+                if (result == Result.SUCCESS && !applied) {
+                    refund(player, amount);
+                }
+            }
+        }, () -> {
+            if (release) inFlight.remove(playerUUID);
+            if (result == Result.SUCCESS) {
+                refund(player, amount);
+            }
+        });
+    }
+
+    private boolean withdraw(OfflinePlayer player, double amount) {
+        EconomyCallEvent event = new EconomyCallEvent();
+        event.begin();
+        boolean success = economy.withdrawPlayer(player, amount).transactionSuccess();
+        commit(event, "withdraw", amount, success);
+        return success;
+    }
+
+    private void deposit(OfflinePlayer player, double amount) {
+        EconomyCallEvent event = new EconomyCallEvent();
+        event.begin();
+        boolean success = economy.depositPlayer(player, amount).transactionSuccess();
+        commit(event, "deposit", amount, success);
+        if (!success) {
+            plugin.getLogger().warning("Could not refund " + format(amount) + " to " + player.getName() + ".");
+        }
+    }
+
+    private static void commit(EconomyCallEvent event, String operation, double amount, boolean success) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.amount = amount;
+            event.success = success;
+            event.commit();
+        }
     }
 
     public String format(double amount) {
         if (!isEnabled()) return String.valueOf(amount);
         return economy.format(amount);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,143 @@
+package com.Lino.territoryBeacons.managers;
+
+import com.Lino.territoryBeacons.PlayerSession;
+import com.Lino.territoryBeacons.Territory;
+import com.Lino.territoryBeacons.TerritoryBeacons;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class EffectManager {
+
+    private static final int EFFECT_DURATION = 20 * 60 * 5;
+    // Deadlines are wall-clock; a lagging server only makes the refresh come early
+    private static final long REFRESH_MARGIN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    // Random spread so players that entered together do not all refresh on the same tick
+    private static final long REFRESH_JITTER_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private final TerritoryBeacons plugin;
+    private final Map<String, PotionEffectType> effectMap = new HashMap<>();
+
+    public EffectManager(TerritoryBeacons plugin) {
+        this.plugin = plugin;
+        initializeEffectMap();
+    }
+
+    private void initializeEffectMap() {
+        effectMap.put("regeneration", PotionEffectType.REGENERATION);
+        effectMap.put("speed", PotionEffectType.SPEED);
+        effectMap.put("jump", PotionEffectType.JUMP_BOOST);
+        effectMap.put("haste", PotionEffectType.HASTE);
+        effectMap.put("fire_resistance", PotionEffectType.FIRE_RESISTANCE);
+        effectMap.put("strength", PotionEffectType.STRENGTH);
+        effectMap.put("resistance", PotionEffectType.RESISTANCE);
+        effectMap.put("luck", PotionEffectType.LUCK);
+        effectMap.put("night_vision", PotionEffectType.NIGHT_VISION);
+        effectMap.put("water_breathing", PotionEffectType.WATER_BREATHING);
+    }
+
+    public void updateEffects(Player player) {
+        PlayerSession session = plugin.getPlayerManager().getSession(player);
+        Set<String> wanted = wantedEffects(session);
+        Set<String> active = session.getActiveEffects();
+        if (wanted.equals(active)) return;
+
+        for (String effectName : active) {
+            if (!wanted.contains(effectName)) {
+                removeEffect(player, effectName);
+            }
+        }
+        boolean added = false;
+        for (String effectName : wanted) {
+            if (!active.contains(effectName)) {
+                addEffect(player, effectName);
+                added = true;
+            }
+        }
+        if (added) {
+            scheduleRefresh(session);
+        }
+        session.setActiveEffects(wanted);
+    }
+
+    public void updateEffects(Territory territory) {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (plugin.getPlayerManager().getSession(player).getCurrentTerritory() == territory) {
+                plugin.getPluginScheduler().executeFor(player, () -> updateEffects(player));
+            }
+        }
+    }
+
+    // For when the client lost our effects (death, milk) without a territory change
+    public void reapplyEffects(Player player) {
+        if (!player.isOnline()) return;
+        PlayerSession session = plugin.getPlayerManager().getSession(player);
+        session.setActiveEffects(Collections.emptySet());
+        updateEffects(player);
+    }
+
+    public void clearEffects(Player player) {
+        PlayerSession session = plugin.getPlayerManager().getSession(player);
+        for (String effectName : session.getActiveEffects()) {
+            removeEffect(player, effectName);
+        }
+        session.setActiveEffects(Collections.emptySet());
+    }
+
+    public void clearAllEffects() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            clearEffects(player);
+        }
+    }
+
+    public void refreshIfDue(Player player) {
+        if (!player.isOnline()) return;
+        PlayerSession session = plugin.getPlayerManager().getSession(player);
+        Set<String> active = session.getActiveEffects();
+        if (active.isEmpty() || session.getEffectsRefreshAt() > System.currentTimeMillis()) return;
+
+        for (String effectName : active) {
+            addEffect(player, effectName);
+        }
+        scheduleRefresh(session);
+    }
+
+    private Set<String> wantedEffects(PlayerSession session) {
+        Territory territory = session.getCurrentTerritory();
+        if (territory == null || !session.canBuildInCurrentTerritory()) {
+            return Collections.emptySet();
+        }
+        return territory.getActiveEffects();
+    }
+
+    private void scheduleRefresh(PlayerSession session) {
+        long jitter = ThreadLocalRandom.current().nextLong(REFRESH_JITTER_MILLIS);
+        long duration = EFFECT_DURATION * 50L;
+        session.setEffectsRefreshAt(System.currentTimeMillis() + duration - REFRESH_MARGIN_MILLIS - jitter);
+    }
+
+    private void addEffect(Player player, String effectName) {
+        PotionEffectType effectType = effectMap.get(effectName);
+        if (effectType != null) {
+            player.addPotionEffect(new PotionEffect(effectType, EFFECT_DURATION, 0, true, false));
+        }
+    }
+
+    private void removeEffect(Player player, String effectName) {
+        PotionEffectType effectType = effectMap.get(effectName);
+        if (effectType == null) return;
+        PotionEffect current = player.getPotionEffect(effectType);
+        // Leave potions the player got elsewhere alone, ours are ambient without particles
+        if (current != null && current.isAmbient() && !current.hasParticles() && current.getAmplifier() == 0) {
+            player.removePotionEffect(effectType);
+        }
+    }
+}
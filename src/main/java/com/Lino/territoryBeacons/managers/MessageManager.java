@@ -1,7 +1,8 @@
 package com.Lino.territoryBeacons.managers;
 
 import com.Lino.territoryBeacons.TerritoryBeacons;
-import com.Lino.territoryBeacons.util.ColorUtil;
+import com.Lino.territoryBeacons.util.MessageTemplate;
+import org.bukkit.configuration.Configuration;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
@@ -10,12 +11,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 public class MessageManager {
 
     private final TerritoryBeacons plugin;
     private FileConfiguration messagesConfig;
+    private volatile Map<String, MessageTemplate> templates = Map.of();
+    private final Map<String, MessageTemplate> missingTemplates = new ConcurrentHashMap<>();
 
     public MessageManager(TerritoryBeacons plugin) {
         this.plugin = plugin;
@@ -37,16 +45,33 @@ public class MessageManager {
         } catch (IOException e) {
             plugin.getLogger().log(Level.SEVERE, "Could not load default messages.yml", e);
         }
+        compileTemplates();
     }
 
-    public String get(String key, String... placeholderPairs) {
-        String message = messagesConfig.getString(key, "<#FF0000>Message not found: " + key);
+    private void compileTemplates() {
+        Set<String> keys = new HashSet<>(messagesConfig.getKeys(true));
+        Configuration defaults = messagesConfig.getDefaults();
+        if (defaults != null) {
+            keys.addAll(defaults.getKeys(true));
+        }
 
-        for (int i = 0; i < placeholderPairs.length; i += 2) {
-            if (i + 1 < placeholderPairs.length) {
-                message = message.replace(placeholderPairs[i], placeholderPairs[i + 1]);
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        for (String key : keys) {
+            if (messagesConfig.isConfigurationSection(key)) continue;
+            String message = messagesConfig.getString(key);
+            if (message != null) {
+                compiled.put(key, MessageTemplate.compile(message));
             }
         }
-        return ColorUtil.format(message);
+        templates = compiled;
+        missingTemplates.clear();
+    }
+
+    public String get(String key, String... placeholderPairs) {
+        MessageTemplate template = templates.get(key);
+        if (template == null) {
+            template = missingTemplates.computeIfAbsent(key, k -> MessageTemplate.compile("<#FF0000>Message not found: " + k));
+        }
+        return template.apply(placeholderPairs);
     }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.Lino.territoryBeacons.managers;
 
 import com.Lino.territoryBeacons.Territory;
 import com.Lino.territoryBeacons.TerritoryBeacons;
+import com.Lino.territoryBeacons.jfr.MarkerSyncEvent;
+import com.Lino.territoryBeacons.tasks.IoLane;
 import net.pl3x.map.core.Pl3xMap;
 import net.pl3x.map.core.event.EventHandler;
 import net.pl3x.map.core.event.EventListener;
@@ -18,15 +20,22 @@ import org.bukkit.entity.Player;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.InputStream;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 public class Pl3xMapManager implements EventListener {
 
     private final TerritoryBeacons plugin;
     private static final String LAYER_KEY = "territorybeacons_territories";
-    private boolean isMapEnabled = false;
+    private static final int AVATAR_TIMEOUT_MILLIS = 5000;
+    private volatile boolean isMapEnabled = false;
+    private final Set<String> avatarsInFlight = ConcurrentHashMap.newKeySet();
 
     public Pl3xMapManager(TerritoryBeacons plugin) {
         this.plugin = plugin;
@@ -67,93 +76,133 @@ public class Pl3xMapManager implements EventListener {
     }
 
     public void addOrUpdateTerritoryMarker(Territory territory) {
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            if (!isMapEnabled) return;
-            World world = Pl3xMap.api().getWorldRegistry().get(territory.getBeaconLocation().getWorld().getName());
-            if (world == null) return;
-
-            SimpleLayer layer = (SimpleLayer) world.getLayerRegistry().get(LAYER_KEY);
-            if (layer == null) return;
-
-            String circleKey = "territory_circle_" + territory.getOwnerUUID();
-            String iconKey = "territory_icon_" + territory.getOwnerUUID();
-            layer.removeMarker(circleKey);
-            layer.removeMarker(iconKey);
-
-            StringBuilder tooltip = new StringBuilder();
-            tooltip.append("<strong>").append(territory.getTerritoryName()).append("</strong><br/>");
-            tooltip.append("Owner: ").append(territory.getOwnerName()).append("<br/>");
-            tooltip.append("Tier: ").append(territory.getTier()).append("<br/>");
-            tooltip.append("Radius: ").append(territory.getRadius()).append(" blocks<br/>");
-            tooltip.append("Trusted: ").append(territory.getTrustedPlayers().size()).append(" players<br/>");
-            tooltip.append("Influence: ").append(String.format("%.1f%%", territory.getInfluence() * 100));
-
-            int strokeColor;
-            int fillColor;
-
-            Player owner = Bukkit.getPlayer(territory.getOwnerUUID());
-            if (owner != null && owner.isOnline()) {
-                tooltip.append("<br/><span style='color: #66FF66;'>Status: Active (Owner Online)</span>");
-                strokeColor = Colors.fromHex("#00FFFF");
-                fillColor = Colors.fromHex("#3300FFFF");
+        plugin.getIoExecutor().submit(IoLane.MAP, () -> recordSync("update", territory, () -> updateMarker(territory)));
+    }
+
+    private boolean updateMarker(Territory territory) {
+        if (!isMapEnabled) return false;
+        World world = Pl3xMap.api().getWorldRegistry().get(territory.getBeaconLocation().getWorld().getName());
+        if (world == null) return false;
+
+        SimpleLayer layer = (SimpleLayer) world.getLayerRegistry().get(LAYER_KEY);
+        if (layer == null) return false;
+
+        String circleKey = "territory_circle_" + territory.getOwnerUUID();
+        String iconKey = "territory_icon_" + territory.getOwnerUUID();
+        layer.removeMarker(circleKey);
+        layer.removeMarker(iconKey);
+
+        StringBuilder tooltip = new StringBuilder();
+        tooltip.append("<strong>").append(territory.getTerritoryName()).append("</strong><br/>");
+        tooltip.append("Owner: ").append(territory.getOwnerName()).append("<br/>");
+        tooltip.append("Tier: ").append(territory.getTier()).append("<br/>");
+        tooltip.append("Radius: ").append(territory.getRadius()).append(" blocks<br/>");
+        tooltip.append("Trusted: ").append(territory.getTrustedPlayers().size()).append(" players<br/>");
+        tooltip.append("Influence: ").append(String.format("%.1f%%", territory.getInfluence() * 100));
+
+        int strokeColor;
+        int fillColor;
+
+        Player owner = Bukkit.getPlayer(territory.getOwnerUUID());
+        if (owner != null && owner.isOnline()) {
+            tooltip.append("<br/><span style='color: #66FF66;'>Status: Active (Owner Online)</span>");
+            strokeColor = Colors.fromHex("#00FFFF");
+            fillColor = Colors.fromHex("#3300FFFF");
+        } else {
+            long decayStartMillis = TimeUnit.HOURS.toMillis(plugin.getConfigManager().getDecayTime());
+            long offlineMillis = System.currentTimeMillis() - plugin.getPlayerManager().getPlayerLastSeen(territory.getOwnerUUID());
+            if (offlineMillis < decayStartMillis) {
+                long remainingMillis = decayStartMillis - offlineMillis;
+                long hours = TimeUnit.MILLISECONDS.toHours(remainingMillis);
+                long minutes = TimeUnit.MILLISECONDS.toMinutes(remainingMillis) % 60;
+                tooltip.append("<br/><span style='color: #FFFF55;'>Status: Decay in ").append(hours).append("h ").append(minutes).append("m</span>");
+                strokeColor = Colors.fromHex("#FFFF55");
+                fillColor = Colors.fromHex("#33FFFF55");
             } else {
-                long decayStartMillis = TimeUnit.HOURS.toMillis(plugin.getConfigManager().getDecayTime());
-                long offlineMillis = System.currentTimeMillis() - plugin.getPlayerManager().getPlayerLastSeen(territory.getOwnerUUID());
-                if (offlineMillis < decayStartMillis) {
-                    long remainingMillis = decayStartMillis - offlineMillis;
-                    long hours = TimeUnit.MILLISECONDS.toHours(remainingMillis);
-                    long minutes = TimeUnit.MILLISECONDS.toMinutes(remainingMillis) % 60;
-                    tooltip.append("<br/><span style='color: #FFFF55;'>Status: Decay in ").append(hours).append("h ").append(minutes).append("m</span>");
-                    strokeColor = Colors.fromHex("#FFFF55");
-                    fillColor = Colors.fromHex("#33FFFF55");
-                } else {
-                    tooltip.append("<br/><span style='color: #FF5555;'>Status: Decaying!</span>");
-                    strokeColor = Colors.fromHex("#FF5555");
-                    fillColor = Colors.fromHex("#33FF5555");
-                }
+                tooltip.append("<br/><span style='color: #FF5555;'>Status: Decaying!</span>");
+                strokeColor = Colors.fromHex("#FF5555");
+                fillColor = Colors.fromHex("#33FF5555");
             }
+        }
+
+        Options.Builder optionsBuilder = new Options.Builder()
+                .stroke(true)
+                .strokeColor(strokeColor)
+                .strokeWeight(2)
+                .fill(true)
+                .fillColor(fillColor)
+                .tooltipContent(tooltip.toString())
+                .tooltipDirection(Tooltip.Direction.TOP);
+
+        Marker<?> circle = Marker.circle(circleKey, territory.getBeaconLocation().getBlockX(), territory.getBeaconLocation().getBlockZ(), territory.getRadius());
+        circle.setOptions(optionsBuilder.build());
+        layer.addMarker(circle);
+
+        String headIconKey = "player_head_" + territory.getOwnerUUID();
+        if (!Pl3xMap.api().getIconRegistry().has(headIconKey)) {
+            fetchAvatar(territory, headIconKey);
+        } else {
+            Marker<?> icon = Marker.icon(iconKey, territory.getBeaconLocation().getBlockX(), territory.getBeaconLocation().getBlockZ(), headIconKey, 16);
+            icon.setOptions(new Options.Builder().tooltipContent(tooltip.toString()).build());
+            layer.addMarker(icon);
+        }
+        return true;
+    }
 
-            Options.Builder optionsBuilder = new Options.Builder()
-                    .stroke(true)
-                    .strokeColor(strokeColor)
-                    .strokeWeight(2)
-                    .fill(true)
-                    .fillColor(fillColor)
-                    .tooltipContent(tooltip.toString())
-                    .tooltipDirection(Tooltip.Direction.TOP);
-
-            Marker<?> circle = Marker.circle(circleKey, territory.getBeaconLocation().getBlockX(), territory.getBeaconLocation().getBlockZ(), territory.getRadius());
-            circle.setOptions(optionsBuilder.build());
-            layer.addMarker(circle);
-
-            String headIconKey = "player_head_" + territory.getOwnerUUID();
-            if (!Pl3xMap.api().getIconRegistry().has(headIconKey)) {
-                try {
-                    String headUrl = "https://cravatar.eu/helmavatar/" + territory.getOwnerUUID() + "/32.png";
-                    BufferedImage image = ImageIO.read(new URL(headUrl));
+    // Downloads run on their own lane so a slow avatar host never delays marker updates;
+    // once the icon is registered the marker is rebuilt to pick it up
+    private void fetchAvatar(Territory territory, String headIconKey) {
+        if (!avatarsInFlight.add(headIconKey)) return;
+        plugin.getIoExecutor().submit(IoLane.AVATAR, () -> {
+            try {
+                URLConnection connection = new URL("https://cravatar.eu/helmavatar/" + territory.getOwnerUUID() + "/32.png").openConnection();
+                connection.setConnectTimeout(AVATAR_TIMEOUT_MILLIS);
+                connection.setReadTimeout(AVATAR_TIMEOUT_MILLIS);
+                BufferedImage image;
+                try (InputStream in = connection.getInputStream()) {
+                    image = ImageIO.read(in);
+                }
+                if (image != null && !Pl3xMap.api().getIconRegistry().has(headIconKey)) {
                     Pl3xMap.api().getIconRegistry().register(new IconImage(headIconKey, image, "png"));
-                } catch (Exception e) {
+                    Territory current = plugin.getTerritoryManager().getTerritoryByLocation(territory.getBeaconLocation());
+                    if (current != null) {
+                        addOrUpdateTerritoryMarker(current);
+                    }
                 }
-            }
-
-            if(Pl3xMap.api().getIconRegistry().has(headIconKey)) {
-                Marker<?> icon = Marker.icon(iconKey, territory.getBeaconLocation().getBlockX(), territory.getBeaconLocation().getBlockZ(), headIconKey, 16);
-                icon.setOptions(new Options.Builder().tooltipContent(tooltip.toString()).build());
-                layer.addMarker(icon);
+            } catch (Exception e) {
+            } finally {
+                avatarsInFlight.remove(headIconKey);
             }
         });
     }
 
     public void removeTerritoryMarker(Territory territory) {
-        if (!isMapEnabled) return;
+        plugin.getIoExecutor().submit(IoLane.MAP, () -> recordSync("remove", territory, () -> removeMarker(territory)));
+    }
+
+    private boolean removeMarker(Territory territory) {
+        if (!isMapEnabled) return false;
         World world = Pl3xMap.api().getWorldRegistry().get(territory.getBeaconLocation().getWorld().getName());
-        if (world == null) return;
+        if (world == null) return false;
 
         SimpleLayer layer = (SimpleLayer) world.getLayerRegistry().get(LAYER_KEY);
-        if (layer == null) return;
+        if (layer == null) return false;
 
         layer.removeMarker("territory_circle_" + territory.getOwnerUUID());
         layer.removeMarker("territory_icon_" + territory.getOwnerUUID());
+        return true;
+    }
+
+    private void recordSync(String action, Territory territory, BooleanSupplier sync) {
+        MarkerSyncEvent event = new MarkerSyncEvent();
+        event.begin();
+        boolean applied = sync.getAsBoolean();
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.owner = territory.getOwnerName();
+            event.applied = applied;
+            event.commit();
+        }
     }
 
     public void disable() {
@@ -1,21 +1,44 @@
 package com.Lino.territoryBeacons.managers;
 
+import com.Lino.territoryBeacons.PlayerSession;
 import com.Lino.territoryBeacons.Territory;
 import com.Lino.territoryBeacons.TerritoryBeacons;
 import org.bukkit.Bukkit;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class PlayerManager {
 
+    private static final int LAST_SEEN_CACHE_SIZE = 1024;
+    private static final long UNKNOWN_LAST_SEEN = -1L;
+
     private final TerritoryBeacons plugin;
     private final MessageManager messageManager;
-    private final Map<UUID, Territory> playerCurrentTerritory = new ConcurrentHashMap<>();
+    private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
     private final Map<UUID, Integer> playerTerritoryCount = new ConcurrentHashMap<>();
+    // Online players, owners and trusted players; everyone else goes through lastSeenCache
     private final Map<UUID, Long> playerLastSeen = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> lastSeenCache = Collections.synchronizedMap(new LinkedHashMap<UUID, Long>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Long> eldest) {
+            return size() > LAST_SEEN_CACHE_SIZE;
+        }
+    });
+    private final Set<UUID> loadingLastSeen = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Long> pendingLastSeen = new ConcurrentHashMap<>();
+    private final Map<UUID, String> pendingNames = new ConcurrentHashMap<>();
+    private final Map<UUID, String> playerNames = new ConcurrentHashMap<>();
+    private final Map<String, UUID> playerIdsByName = new ConcurrentHashMap<>();
 
     public PlayerManager(TerritoryBeacons plugin) {
         this.plugin = plugin;
@@ -24,50 +47,155 @@ public class PlayerManager {
 
     public void loadPlayerData() {
         plugin.getDatabaseManager().loadPlayerData(this);
+        for (Territory territory : plugin.getTerritoryManager().getAllTerritories()) {
+            if (!playerNames.containsKey(territory.getOwnerUUID())) {
+                recordPlayerName(territory.getOwnerUUID(), territory.getOwnerName());
+            }
+        }
+    }
+
+    public void savePlayerData() {
+        if (pendingLastSeen.isEmpty()) return;
+        Map<UUID, Long> lastSeen = new HashMap<>(pendingLastSeen);
+        Map<UUID, String> names = new HashMap<>();
+        for (UUID playerUUID : lastSeen.keySet()) {
+            String name = pendingNames.get(playerUUID);
+            if (name != null) {
+                names.put(playerUUID, name);
+            }
+        }
+        // Entries stay pending until the write lands so reads never fall through to a stale row
+        plugin.getDatabaseManager().saveAllPlayerData(lastSeen, names).thenRun(() -> {
+            lastSeen.forEach(pendingLastSeen::remove);
+            names.forEach(pendingNames::remove);
+        });
     }
 
     public void saveAndClearPlayerData() {
-        plugin.getDatabaseManager().saveAllPlayerData(playerLastSeen);
-        playerCurrentTerritory.clear();
+        savePlayerData();
+        sessions.clear();
+    }
+
+    public PlayerSession getSession(Player player) {
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null) {
+            session = sessions.computeIfAbsent(player.getUniqueId(), uuid -> new PlayerSession(player));
+        }
+        return session;
+    }
+
+    public void refreshSession(Player player) {
+        getSession(player).refreshPermissions();
+    }
+
+    public void loadPlayerRecord(UUID playerUUID, long lastSeen, String name) {
+        playerLastSeen.put(playerUUID, lastSeen);
+        if (name != null) {
+            recordPlayerName(playerUUID, name);
+        }
     }
 
     public void updatePlayerLastSeen(UUID playerUUID, long lastSeen) {
         playerLastSeen.put(playerUUID, lastSeen);
+        pendingLastSeen.put(playerUUID, lastSeen);
     }
 
     public long getPlayerLastSeen(UUID playerUUID) {
-        return playerLastSeen.getOrDefault(playerUUID, System.currentTimeMillis());
+        Long lastSeen = playerLastSeen.get(playerUUID);
+        if (lastSeen == null) {
+            lastSeen = pendingLastSeen.get(playerUUID);
+        }
+        if (lastSeen == null) {
+            lastSeen = lastSeenCache.get(playerUUID);
+            if (lastSeen == null) {
+                loadLastSeen(playerUUID);
+                lastSeen = UNKNOWN_LAST_SEEN;
+            }
+        }
+        return lastSeen != UNKNOWN_LAST_SEEN ? lastSeen : System.currentTimeMillis();
     }
 
-    public void updatePlayerTerritoryCount(UUID playerUUID) {
-        int count = plugin.getTerritoryManager().getPlayerTerritoryCount(playerUUID);
-        playerTerritoryCount.put(playerUUID, count);
+    // Callers run on the main thread, region threads and other lanes, so a miss never queries
+    // from there: the row is read on the database lane and counts as "seen now" until it lands
+    private void loadLastSeen(UUID playerUUID) {
+        if (!loadingLastSeen.add(playerUUID)) return;
+        plugin.getDatabaseManager().loadPlayerLastSeen(playerUUID, UNKNOWN_LAST_SEEN)
+                .thenAccept(lastSeen -> lastSeenCache.put(playerUUID, lastSeen))
+                .whenComplete((ignored, error) -> loadingLastSeen.remove(playerUUID));
+    }
+
+    public void recordPlayerName(UUID playerUUID, String name) {
+        String previous = playerNames.put(playerUUID, name);
+        if (previous != null && !previous.equalsIgnoreCase(name)) {
+            playerIdsByName.remove(previous.toLowerCase(Locale.ROOT), playerUUID);
+        }
+        playerIdsByName.put(name.toLowerCase(Locale.ROOT), playerUUID);
+    }
+
+    public UUID getPlayerUUID(String name) {
+        return playerIdsByName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public String getPlayerName(UUID playerUUID) {
+        return playerNames.get(playerUUID);
+    }
+
+    public void incrementTerritoryCount(UUID playerUUID) {
+        playerTerritoryCount.merge(playerUUID, 1, Integer::sum);
+    }
+
+    public void decrementTerritoryCount(UUID playerUUID) {
+        playerTerritoryCount.computeIfPresent(playerUUID, (uuid, count) -> count > 1 ? count - 1 : null);
     }
 
     public int getPlayerTerritoryCount(UUID playerUUID) {
-        return playerTerritoryCount.computeIfAbsent(playerUUID, u -> plugin.getTerritoryManager().getPlayerTerritoryCount(u));
+        return playerTerritoryCount.getOrDefault(playerUUID, 0);
+    }
+
+    public Map<UUID, int[]> verifyTerritoryCounts() {
+        Map<UUID, Integer> actual = plugin.getTerritoryManager().countTerritoriesByOwner();
+        Set<UUID> owners = new HashSet<>(actual.keySet());
+        owners.addAll(playerTerritoryCount.keySet());
+
+        Map<UUID, int[]> drift = new HashMap<>();
+        for (UUID owner : owners) {
+            int stored = playerTerritoryCount.getOrDefault(owner, 0);
+            int real = actual.getOrDefault(owner, 0);
+            if (stored != real) {
+                drift.put(owner, new int[]{stored, real});
+            }
+        }
+        playerTerritoryCount.keySet().retainAll(actual.keySet());
+        playerTerritoryCount.putAll(actual);
+        return drift;
     }
 
     public void onPlayerJoin(Player player) {
-        playerLastSeen.put(player.getUniqueId(), System.currentTimeMillis());
-        updatePlayerTerritoryCount(player.getUniqueId());
-        Bukkit.getScheduler().runTaskLater(plugin, () -> checkPlayerTerritory(player), 20L);
+        sessions.put(player.getUniqueId(), new PlayerSession(player));
+        lastSeenCache.remove(player.getUniqueId());
+        updatePlayerLastSeen(player.getUniqueId(), System.currentTimeMillis());
+        recordPlayerName(player.getUniqueId(), player.getName());
+        pendingNames.put(player.getUniqueId(), player.getName());
+        plugin.getPluginScheduler().runForLater(player, () -> checkPlayerTerritory(player), 20L);
     }
 
     public void onPlayerQuit(Player player) {
-        playerCurrentTerritory.remove(player.getUniqueId());
-        playerLastSeen.put(player.getUniqueId(), System.currentTimeMillis());
+        plugin.getEffectManager().clearEffects(player);
+        sessions.remove(player.getUniqueId());
+        updatePlayerLastSeen(player.getUniqueId(), System.currentTimeMillis());
     }
 
     public void checkPlayerTerritory(Player player) {
         if (!player.isOnline()) return;
 
         UUID playerUUID = player.getUniqueId();
+        PlayerSession session = getSession(player);
         Territory currentTerritory = plugin.getTerritoryManager().getTerritoryAt(player.getLocation());
-        Territory previousTerritory = playerCurrentTerritory.get(playerUUID);
+        Territory previousTerritory = session.getCurrentTerritory();
+        if (currentTerritory == previousTerritory) return;
 
         if (currentTerritory != null && !currentTerritory.equals(previousTerritory)) {
-            playerCurrentTerritory.put(playerUUID, currentTerritory);
+            session.setCurrentTerritory(currentTerritory);
             String title;
             String subtitle;
             if (currentTerritory.getOwnerUUID().equals(playerUUID)) {
@@ -81,19 +209,45 @@ public class PlayerManager {
             }
             player.sendTitle(title, subtitle, 10, 40, 10);
             player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_CHIME, 0.5f, 1.0f);
-        } else if (currentTerritory == null && previousTerritory != null) {
-            playerCurrentTerritory.remove(playerUUID);
+        } else if (currentTerritory == null) {
+            session.setCurrentTerritory(null);
             player.sendTitle(messageManager.get("title-wilderness"), messageManager.get("subtitle-wilderness"), 10, 30, 10);
             player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_BASS, 0.5f, 0.8f);
+        } else {
+            // Same claim replaced by an upgrade, no title needed
+            session.setCurrentTerritory(currentTerritory);
         }
+        plugin.getEffectManager().updateEffects(player);
     }
 
     public void cleanupUnusedData() {
+        Set<UUID> resident = new HashSet<>();
+        for (Territory territory : plugin.getTerritoryManager().getAllTerritories()) {
+            resident.add(territory.getOwnerUUID());
+            resident.addAll(territory.getTrustedPlayers());
+        }
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            resident.add(player.getUniqueId());
+        }
+
+        Iterator<Map.Entry<UUID, Long>> iterator = playerLastSeen.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Long> entry = iterator.next();
+            if (!resident.contains(entry.getKey())) {
+                lastSeenCache.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+        Iterator<Map.Entry<UUID, String>> names = playerNames.entrySet().iterator();
+        while (names.hasNext()) {
+            Map.Entry<UUID, String> entry = names.next();
+            if (!resident.contains(entry.getKey())) {
+                names.remove();
+                playerIdsByName.remove(entry.getValue().toLowerCase(Locale.ROOT), entry.getKey());
+            }
+        }
+
         long thirtyDaysAgo = System.currentTimeMillis() - (30L * 24 * 60 * 60 * 1000);
-        playerLastSeen.entrySet().removeIf(entry ->
-                entry.getValue() < thirtyDaysAgo &&
-                        plugin.getTerritoryManager().getPlayerTerritoryCount(entry.getKey()) == 0
-        );
         plugin.getDatabaseManager().cleanOldPlayerData(thirtyDaysAgo);
     }
 }
\ No newline at end of file
@@ -2,66 +2,90 @@ package com.Lino.territoryBeacons.managers;
 
 import com.Lino.territoryBeacons.Territory;
 import com.Lino.territoryBeacons.TerritoryBeacons;
+import com.Lino.territoryBeacons.jfr.BorderRebuildEvent;
+import com.Lino.territoryBeacons.metrics.Metrics;
+import com.Lino.territoryBeacons.util.NearbyTerritory;
+import com.Lino.territoryBeacons.util.TerritoryIndex;
 import org.bukkit.*;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
+import com.Lino.territoryBeacons.tasks.PluginScheduler;
+import com.Lino.territoryBeacons.tasks.ScheduledTask;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TerritoryManager {
 
     private final TerritoryBeacons plugin;
     private final MessageManager messageManager;
-    private final Map<Location, Territory> territories = new ConcurrentHashMap<>();
-    private final Map<Location, BukkitTask> activeEffects = new ConcurrentHashMap<>();
+    private final Metrics metrics;
+    private final TerritoryIndex index = new TerritoryIndex();
+    private final Map<Location, ScheduledTask> activeEffects = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
 
     public TerritoryManager(TerritoryBeacons plugin) {
         this.plugin = plugin;
         this.messageManager = plugin.getMessageManager();
+        this.metrics = plugin.getMetrics();
     }
 
     public void loadTerritories() {
-        plugin.getDatabaseManager().loadTerritories(this);
-        plugin.getLogger().info("Loaded " + territories.size() + " territories from database.");
+        index.beginBulkLoad();
+        plugin.getDatabaseManager().loadTerritories(territory -> {
+            addTerritory(territory.getBeaconLocation(), territory);
+            createTerritoryBorder(territory.getBeaconLocation(), territory);
+        });
+        index.endBulkLoad();
+        plugin.getLogger().info("Loaded " + index.size() + " territories from database.");
     }
 
     public void saveAndClearTerritories() {
-        for (Territory territory : territories.values()) {
+        List<Territory> territories = new ArrayList<>(index.values());
+        for (Territory territory : territories) {
             removeTerritoryBorder(territory);
-            plugin.getDatabaseManager().updateTerritoryInDatabase(territory);
             if (plugin.getPl3xMapManager() != null) {
                 plugin.getPl3xMapManager().removeTerritoryMarker(territory);
             }
         }
-        activeEffects.values().forEach(BukkitTask::cancel);
+        plugin.getDatabaseManager().saveAllTerritories(territories);
+        activeEffects.values().forEach(ScheduledTask::cancel);
         activeEffects.clear();
-        territories.clear();
+        index.clear();
     }
 
     public void addTerritory(Location location, Territory territory) {
-        territories.put(location, territory);
-        plugin.getPlayerManager().updatePlayerTerritoryCount(territory.getOwnerUUID());
+        Territory previous = index.add(location, territory);
+        version.incrementAndGet();
+        if (previous != null) {
+            plugin.getPlayerManager().decrementTerritoryCount(previous.getOwnerUUID());
+        }
+        plugin.getPlayerManager().incrementTerritoryCount(territory.getOwnerUUID());
         if (plugin.getPl3xMapManager() != null) {
             plugin.getPl3xMapManager().addOrUpdateTerritoryMarker(territory);
         }
     }
 
     public void removeTerritory(Location location) {
-        Territory territory = territories.remove(location);
+        Territory territory = index.remove(location);
         if (territory != null) {
+            version.incrementAndGet();
             removeTerritoryBorder(territory);
-            if (activeEffects.containsKey(location)) {
-                activeEffects.get(location).cancel();
-                activeEffects.remove(location);
+            ScheduledTask effect = activeEffects.remove(location);
+            if (effect != null) {
+                effect.cancel();
             }
             plugin.getDatabaseManager().removeTerritoryFromDatabase(territory);
-            plugin.getPlayerManager().updatePlayerTerritoryCount(territory.getOwnerUUID());
+            plugin.getPlayerManager().decrementTerritoryCount(territory.getOwnerUUID());
             if (plugin.getPl3xMapManager() != null) {
                 plugin.getPl3xMapManager().removeTerritoryMarker(territory);
             }
@@ -69,60 +93,60 @@ public class TerritoryManager {
     }
 
     public Territory getTerritoryAt(Location location) {
-        for (Territory territory : territories.values()) {
-            if (territory.contains(location)) {
-                return territory;
-            }
-        }
-        return null;
+        Territory territory = index.getTerritoryAt(location.getWorld(), location.getX(), location.getY(), location.getZ());
+        metrics.recordIndexLookup(territory != null);
+        return territory;
+    }
+
+    public Territory getTerritoryAt(Block block) {
+        Territory territory = index.getTerritoryAt(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        metrics.recordIndexLookup(territory != null);
+        return territory;
+    }
+
+    public List<NearbyTerritory> getNearestTerritories(Location location, double maxDistance, int limit) {
+        return index.nearest(location.getWorld(), location.getX(), location.getZ(), maxDistance, limit);
     }
 
     public Territory getTerritoryByLocation(Location location) {
-        return territories.get(location);
+        return index.get(location);
     }
 
     public Territory getTerritoryByOwner(UUID ownerUUID) {
-        for (Territory territory : territories.values()) {
-            if (territory.getOwnerUUID().equals(ownerUUID)) {
-                return territory;
-            }
-        }
-        return null;
+        return index.findByOwner(ownerUUID);
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void markTerritoriesChanged() {
+        version.incrementAndGet();
     }
 
     public Collection<Territory> getAllTerritories() {
-        return territories.values();
+        return index.values();
     }
 
     public int getPlayerTerritoryCount(UUID playerUUID) {
-        return (int) territories.values().stream()
-                .filter(t -> t.getOwnerUUID().equals(playerUUID))
-                .count();
+        return plugin.getPlayerManager().getPlayerTerritoryCount(playerUUID);
     }
 
-    public boolean isCloseToOtherTerritory(Location loc, int newRadius) {
-        for (Territory territory : territories.values()) {
-            if (!loc.getWorld().equals(territory.getBeaconLocation().getWorld())) {
-                continue;
-            }
-            double distance = loc.distance(territory.getBeaconLocation());
-            if (distance < (territory.getRadius() + newRadius)) {
-                return true;
-            }
+    public Map<UUID, Integer> countTerritoriesByOwner() {
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (Territory territory : index.values()) {
+            counts.merge(territory.getOwnerUUID(), 1, Integer::sum);
         }
-        return false;
+        return counts;
+    }
+
+    public boolean isCloseToOtherTerritory(Location loc, int newRadius) {
+        return index.anyReaching(loc.getWorld(), loc.getX(), loc.getY(), loc.getZ(), newRadius);
     }
 
     public boolean isCloseToBeacon(Location loc) {
         int minDistance = plugin.getConfigManager().getMinimumBeaconDistance();
-        for (Location beaconLoc : territories.keySet()) {
-            if (beaconLoc.getWorld().equals(loc.getWorld())) {
-                if (beaconLoc.distance(loc) < minDistance) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return index.anyBeaconWithin(loc.getWorld(), loc.getX(), loc.getY(), loc.getZ(), minDistance);
     }
 
     public void createTerritory(Player owner, Location loc) {
@@ -138,24 +162,28 @@ public class TerritoryManager {
 
         owner.sendMessage(messageManager.get("territory-created", "%radius%", String.valueOf(radius)));
         Bukkit.broadcastMessage(messageManager.get("broadcast-territory-created", "%owner%", owner.getName()));
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            p.playSound(p.getLocation(), Sound.UI_TOAST_CHALLENGE_COMPLETE, 0.8f, 1.0f);
-        }
+        playSoundToAll(Sound.UI_TOAST_CHALLENGE_COMPLETE, 0.8f, 1.0f);
     }
 
     public void deleteTerritory(Player owner, Territory territory, Location beaconLoc) {
         removeTerritory(beaconLoc);
 
-        if (beaconLoc.getBlock().getType() == Material.BEACON) {
-            beaconLoc.getBlock().setType(Material.AIR);
-            beaconLoc.getWorld().dropItemNaturally(beaconLoc, new ItemStack(Material.BEACON));
-        }
+        plugin.getPluginScheduler().executeAt(beaconLoc, () -> {
+            if (beaconLoc.getBlock().getType() == Material.BEACON) {
+                beaconLoc.getBlock().setType(Material.AIR);
+                beaconLoc.getWorld().dropItemNaturally(beaconLoc, new ItemStack(Material.BEACON));
+            }
+        });
 
         owner.sendMessage(messageManager.get("territory-deleted"));
         Bukkit.broadcastMessage(messageManager.get("broadcast-territory-deleted", "%owner%", owner.getName()));
+        playSoundToAll(Sound.ENTITY_WITHER_DEATH, 0.5f, 1.0f);
+    }
 
+    private void playSoundToAll(Sound sound, float volume, float pitch) {
+        PluginScheduler scheduler = plugin.getPluginScheduler();
         for (Player p : Bukkit.getOnlinePlayers()) {
-            p.playSound(p.getLocation(), Sound.ENTITY_WITHER_DEATH, 0.5f, 1.0f);
+            scheduler.executeFor(p, () -> p.playSound(p.getLocation(), sound, volume, pitch));
         }
     }
 
@@ -164,13 +192,11 @@ public class TerritoryManager {
         Location beaconLoc = territory.getBeaconLocation();
 
         Territory newTerritory = new Territory(territory.getOwnerUUID(), territory.getOwnerName(), beaconLoc, newRadius, targetTier);
-        newTerritory.setTerritoryName(territory.getTerritoryName());
-        newTerritory.setInfluence(territory.getInfluence());
-        territory.getTrustedPlayers().forEach(newTerritory::addTrustedPlayer);
-        territory.getActiveEffects().forEach(newTerritory::toggleEffect);
+        copySettings(territory, newTerritory);
 
         removeTerritoryBorder(territory);
-        territories.put(beaconLoc, newTerritory);
+        index.add(beaconLoc, newTerritory);
+        version.incrementAndGet();
         createTerritoryBorder(beaconLoc, newTerritory);
 
         if (plugin.getPl3xMapManager() != null) {
@@ -184,34 +210,110 @@ public class TerritoryManager {
         player.playSound(player.getLocation(), Sound.ENTITY_PLAYER_LEVELUP, 1.0f, 1.0f);
     }
 
+    // Claims whose tier radius no longer matches the config after a reload; the task manager
+    // resizes them a few at a time so a big server does not stall on it
+    public int queueRadiusChanges() {
+        List<Location> stale = new ArrayList<>();
+        for (Territory territory : index.values()) {
+            if (territory.getRadius() != plugin.getConfigManager().getRadiusForTier(territory.getTier())) {
+                stale.add(territory.getBeaconLocation());
+            }
+        }
+        plugin.getTaskManager().scheduleResizes(stale);
+        return stale.size();
+    }
+
+    public void resizeTerritory(Location beaconLoc) {
+        Territory territory = index.get(beaconLoc);
+        if (territory == null) return;
+        int radius = plugin.getConfigManager().getRadiusForTier(territory.getTier());
+        if (radius == territory.getRadius()) return;
+
+        Territory resized = new Territory(territory.getOwnerUUID(), territory.getOwnerName(), beaconLoc, radius, territory.getTier());
+        copySettings(territory, resized);
+
+        removeTerritoryBorder(territory);
+        index.add(beaconLoc, resized);
+        version.incrementAndGet();
+        createTerritoryBorder(beaconLoc, resized);
+
+        if (plugin.getPl3xMapManager() != null) {
+            plugin.getPl3xMapManager().addOrUpdateTerritoryMarker(resized);
+        }
+        plugin.getDatabaseManager().updateTerritoryInDatabase(resized);
+    }
+
+    // Everything but the radius and tier carries over when a claim is rebuilt
+    private static void copySettings(Territory from, Territory to) {
+        to.setTerritoryName(from.getTerritoryName());
+        to.setInfluence(from.getInfluence());
+        to.setPvpEnabled(from.isPvpEnabled());
+        to.setMobSpawningEnabled(from.isMobSpawningEnabled());
+        from.getTrustedPlayers().forEach(to::addTrustedPlayer);
+        from.getUnlockedEffects().forEach(to::unlockEffect);
+        from.getActiveEffects().forEach(to::toggleEffect);
+    }
+
     public void createTerritoryBorder(Location center, Territory territory) {
+        int removed = territory.getBorderBlocks().size();
         removeTerritoryBorder(territory);
         territory.clearBorderBlocks();
         World world = center.getWorld();
         int radius = territory.getRadius();
+        PluginScheduler scheduler = plugin.getPluginScheduler();
 
+        // A torch every 10 degrees, batched by chunk; each batch runs on the thread owning its chunk
+        Map<Long, List<double[]>> batches = new LinkedHashMap<>();
         for (int angle = 0; angle < 360; angle += 10) {
             double rad = Math.toRadians(angle);
             double x = center.getX() + radius * Math.cos(rad);
             double z = center.getZ() + radius * Math.sin(rad);
-            Location borderLoc = new Location(world, x, world.getHighestBlockYAt((int)x, (int)z), z);
-            Location placeLoc = borderLoc.add(0, 1, 0);
+            long chunkKey = ((long) ((int) Math.floor(x) >> 4) << 32) | (((int) Math.floor(z) >> 4) & 0xFFFFFFFFL);
+            batches.computeIfAbsent(chunkKey, key -> new ArrayList<>()).add(new double[]{x, z});
+        }
 
-            if (placeLoc.getBlock().getType().isAir() && isOnBorder(placeLoc, center, radius)) {
-                if (placeLoc.getBlock().getRelative(0, -1, 0).getType().isSolid()) {
-                    placeLoc.getBlock().setType(Material.TORCH);
-                    territory.addBorderBlock(placeLoc);
+        boolean first = true;
+        for (List<double[]> batch : batches.values()) {
+            int reportedRemoved = first ? removed : 0;
+            first = false;
+            double[] anchor = batch.get(0);
+            scheduler.executeAt(new Location(world, anchor[0], center.getY(), anchor[1]), () -> {
+                BorderRebuildEvent event = new BorderRebuildEvent();
+                event.begin();
+                int placed = 0;
+                for (double[] point : batch) {
+                    double x = point[0];
+                    double z = point[1];
+                    Location borderLoc = new Location(world, x, world.getHighestBlockYAt((int)x, (int)z), z);
+                    Location placeLoc = borderLoc.add(0, 1, 0);
+
+                    if (placeLoc.getBlock().getType().isAir() && isOnBorder(placeLoc, center, radius)) {
+                        if (placeLoc.getBlock().getRelative(0, -1, 0).getType().isSolid()) {
+                            placeLoc.getBlock().setType(Material.TORCH);
+                            territory.addBorderBlock(placeLoc);
+                            placed++;
+                        }
+                    }
                 }
-            }
+                if (event.shouldCommit()) {
+                    event.world = world.getName();
+                    event.radius = radius;
+                    event.removed = reportedRemoved;
+                    event.candidates = batch.size();
+                    event.placed = placed;
+                    event.commit();
+                }
+            });
         }
     }
 
     public void removeTerritoryBorder(Territory territory) {
-        new HashSet<>(territory.getBorderBlocks()).forEach(loc -> {
+        PluginScheduler scheduler = plugin.getPluginScheduler();
+        new HashSet<>(territory.getBorderBlocks()).forEach(loc -> scheduler.executeAt(loc, () -> {
             if (loc.getBlock().getType() == Material.TORCH) {
                 loc.getBlock().setType(Material.AIR);
             }
-        });
+        }));
         territory.clearBorderBlocks();
     }
 
@@ -224,28 +326,24 @@ public class TerritoryManager {
     }
 
     public void spawnCreationEffect(Location loc) {
-        if (activeEffects.containsKey(loc)) {
-            activeEffects.get(loc).cancel();
-        }
-
-        BukkitTask task = new BukkitRunnable() {
-            double radius = 0;
-            @Override
-            public void run() {
-                if (radius > 10) {
-                    activeEffects.remove(loc);
-                    cancel();
-                    return;
-                }
-                for (int angle = 0; angle < 360; angle += 10) {
-                    double rad = Math.toRadians(angle);
-                    double x = loc.getX() + 0.5 + radius * Math.cos(rad);
-                    double z = loc.getZ() + 0.5 + radius * Math.sin(rad);
-                    loc.getWorld().spawnParticle(Particle.END_ROD, x, loc.getY() + 1, z, 1, 0, 0.1, 0, 0.05);
-                }
-                radius += 0.5;
+        double[] radius = {0};
+        ScheduledTask task = plugin.getPluginScheduler().runAtTimer(loc, self -> {
+            if (radius[0] > 10) {
+                activeEffects.remove(loc, self);
+                self.cancel();
+                return;
+            }
+            for (int angle = 0; angle < 360; angle += 10) {
+                double rad = Math.toRadians(angle);
+                double x = loc.getX() + 0.5 + radius[0] * Math.cos(rad);
+                double z = loc.getZ() + 0.5 + radius[0] * Math.sin(rad);
+                loc.getWorld().spawnParticle(Particle.END_ROD, x, loc.getY() + 1, z, 1, 0, 0.1, 0, 0.05);
             }
-        }.runTaskTimer(plugin, 0, 2);
-        activeEffects.put(loc, task);
+            radius[0] += 0.5;
+        }, 1, 2);
+        ScheduledTask previous = activeEffects.put(loc, task);
+        if (previous != null) {
+            previous.cancel();
+        }
     }
 }
\ No newline at end of file
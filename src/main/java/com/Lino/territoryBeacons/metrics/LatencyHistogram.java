@@ -0,0 +1,114 @@
+package com.Lino.territoryBeacons.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear buckets in the style of HdrHistogram: four buckets per power of two from 256ns up to
+// about a minute, so any recorded value is off by at most 25%. Every bucket is a LongAdder, so
+// recording from many threads never contends on a single cache line.
+public final class LatencyHistogram {
+
+    private static final int MIN_EXPONENT = 8;
+    private static final int MAX_EXPONENT = 36;
+    private static final int SUB_BUCKETS = 4;
+    static final int BUCKETS = 1 + (MAX_EXPONENT - MIN_EXPONENT) * SUB_BUCKETS;
+
+    private final MetricFamily family;
+    private final String label;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    LatencyHistogram(MetricFamily family, String label) {
+        this.family = family;
+        this.label = label;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    // Pairs with Metrics.start(); a start of 0 means metrics were off when the work began
+    public void stop(long startNanos) {
+        if (startNanos == 0L) return;
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets[bucketOf(nanos)].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < (1L << MIN_EXPONENT)) return 0;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent >= MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (nanos >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundNanos(int bucket) {
+        if (bucket == 0) return 1L << MIN_EXPONENT;
+        int exponent = MIN_EXPONENT + (bucket - 1) / SUB_BUCKETS;
+        int sub = (bucket - 1) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (exponent - 2);
+    }
+
+    static boolean isOctaveBoundary(int bucket) {
+        return bucket == 0 || (bucket - 1) % SUB_BUCKETS == SUB_BUCKETS - 1;
+    }
+
+    public long percentileNanos(double quantile) {
+        long total = count.sum();
+        if (total == 0) return 0L;
+        long target = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= target) {
+                return Math.min(upperBoundNanos(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    long[] snapshotBuckets() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    public MetricFamily getFamily() {
+        return family;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+}
@@ -0,0 +1,42 @@
+package com.Lino.territoryBeacons.metrics;
+
+public enum MetricFamily {
+    LISTENER("listener", "territorybeacons_listener_seconds", "handler", "Time spent in TerritoryListener event handlers."),
+    TASK("task", "territorybeacons_task_seconds", "task", "Time spent in scheduled jobs per run or tick slice."),
+    DATABASE("db", "territorybeacons_db_statement_seconds", "statement", "Time spent executing database operations.");
+
+    private final String key;
+    private final String metricName;
+    private final String labelName;
+    private final String help;
+
+    MetricFamily(String key, String metricName, String labelName, String help) {
+        this.key = key;
+        this.metricName = metricName;
+        this.labelName = labelName;
+        this.help = help;
+    }
+
+    public static MetricFamily fromKey(String key) {
+        for (MetricFamily family : values()) {
+            if (family.key.equalsIgnoreCase(key)) return family;
+        }
+        return null;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public String getLabelName() {
+        return labelName;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+}
@@ -0,0 +1,72 @@
+package com.Lino.territoryBeacons.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Switched by metrics.enabled in config.yml. While off, start() is a single volatile read and the
+// matching stop() returns at once, so instrumented code costs next to nothing.
+public class Metrics {
+
+    private final Map<MetricFamily, Map<String, LatencyHistogram>> histograms = new EnumMap<>(MetricFamily.class);
+    private final LongAdder indexHits = new LongAdder();
+    private final LongAdder indexMisses = new LongAdder();
+    private volatile boolean enabled;
+    private volatile long resetAt = System.currentTimeMillis();
+
+    public Metrics() {
+        for (MetricFamily family : MetricFamily.values()) {
+            histograms.put(family, new ConcurrentHashMap<>());
+        }
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public LatencyHistogram histogram(MetricFamily family, String label) {
+        return histograms.get(family).computeIfAbsent(label, key -> new LatencyHistogram(family, key));
+    }
+
+    public void recordIndexLookup(boolean hit) {
+        if (!enabled) return;
+        (hit ? indexHits : indexMisses).increment();
+    }
+
+    public List<LatencyHistogram> getHistograms(MetricFamily family) {
+        List<LatencyHistogram> result = new ArrayList<>(histograms.get(family).values());
+        result.sort((a, b) -> a.getLabel().compareTo(b.getLabel()));
+        return Collections.unmodifiableList(result);
+    }
+
+    public long getIndexHits() {
+        return indexHits.sum();
+    }
+
+    public long getIndexMisses() {
+        return indexMisses.sum();
+    }
+
+    public void reset() {
+        histograms.values().forEach(family -> family.values().forEach(LatencyHistogram::reset));
+        indexHits.reset();
+        indexMisses.reset();
+        resetAt = System.currentTimeMillis();
+    }
+
+    public long getResetAt() {
+        return resetAt;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,71 @@
+package com.Lino.territoryBeacons.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+
+// Text exposition format, written to a temp file and moved into place so a scraper (or the
+// node_exporter textfile collector) never reads a half-written file. Histogram buckets are
+// exported at every power of two; the finer buckets only feed the in-game percentiles.
+public final class PrometheusExporter {
+
+    private PrometheusExporter() {
+    }
+
+    public static String render(Metrics metrics) {
+        StringBuilder out = new StringBuilder(16384);
+        for (MetricFamily family : MetricFamily.values()) {
+            List<LatencyHistogram> histograms = metrics.getHistograms(family);
+            if (histograms.isEmpty()) continue;
+            String name = family.getMetricName();
+            out.append("# HELP ").append(name).append(' ').append(family.getHelp()).append('\n');
+            out.append("# TYPE ").append(name).append(" histogram\n");
+            for (LatencyHistogram histogram : histograms) {
+                String label = family.getLabelName() + "=\"" + escape(histogram.getLabel()) + "\"";
+                long[] buckets = histogram.snapshotBuckets();
+                long cumulative = 0;
+                for (int i = 0; i < buckets.length; i++) {
+                    cumulative += buckets[i];
+                    if (LatencyHistogram.isOctaveBoundary(i) && i < buckets.length - 1) {
+                        out.append(name).append("_bucket{").append(label).append(",le=\"")
+                                .append(seconds(LatencyHistogram.upperBoundNanos(i))).append("\"} ").append(cumulative).append('\n');
+                    }
+                }
+                out.append(name).append("_bucket{").append(label).append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+                out.append(name).append("_sum{").append(label).append("} ").append(seconds(histogram.getTotalNanos())).append('\n');
+                out.append(name).append("_count{").append(label).append("} ").append(cumulative).append('\n');
+            }
+        }
+
+        out.append("# HELP territorybeacons_index_lookups_total Territory lookups by location.\n");
+        out.append("# TYPE territorybeacons_index_lookups_total counter\n");
+        out.append("territorybeacons_index_lookups_total{result=\"hit\"} ").append(metrics.getIndexHits()).append('\n');
+        out.append("territorybeacons_index_lookups_total{result=\"miss\"} ").append(metrics.getIndexMisses()).append('\n');
+        return out.toString();
+    }
+
+    public static void write(Metrics metrics, File file) throws IOException {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        Files.write(temp, render(metrics).getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9g", nanos / 1_000_000_000.0);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,73 @@
+package com.Lino.territoryBeacons.metrics;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+
+// Registers a listener's @EventHandler methods the way registerEvents does, but through an
+// executor that times each call, so every handler gets a histogram without touching its body.
+// Each handler is bound once to a generated BiConsumer, so dispatch is a plain interface call
+// rather than reflection; with metrics off the timing is a single flag check.
+public final class TimedListeners {
+
+    private TimedListeners() {
+    }
+
+    public static void register(Plugin plugin, Listener listener, Metrics metrics) {
+        for (Method method : listener.getClass().getDeclaredMethods()) {
+            EventHandler handler = method.getAnnotation(EventHandler.class);
+            if (handler == null || method.isBridge() || method.isSynthetic() || method.getParameterCount() != 1) continue;
+            Class<?> parameter = method.getParameterTypes()[0];
+            if (!Event.class.isAssignableFrom(parameter)) {
+                plugin.getLogger().warning("Skipping handler " + method.getName() + ": " + parameter.getName() + " is not an event.");
+                continue;
+            }
+            Class<? extends Event> eventType = parameter.asSubclass(Event.class);
+            BiConsumer<Object, Object> invoker;
+            try {
+                invoker = bind(method, eventType);
+            } catch (Throwable e) {
+                plugin.getLogger().warning("Skipping handler " + method.getName() + ": " + e);
+                continue;
+            }
+            LatencyHistogram histogram = metrics.histogram(MetricFamily.LISTENER, method.getName());
+            EventExecutor executor = (target, event) -> {
+                // Bukkit also hands subclasses of other registered events to each executor
+                if (!eventType.isInstance(event)) return;
+                long start = metrics.start();
+                try {
+                    invoker.accept(target, event);
+                } catch (Throwable e) {
+                    throw new EventException(e);
+                } finally {
+                    histogram.stop(start);
+                }
+            };
+            plugin.getServer().getPluginManager().registerEvent(eventType, listener, handler.priority(), executor, plugin, handler.ignoreCancelled());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> bind(Method method, Class<? extends Event> eventType) throws Throwable {
+        Class<?> owner = method.getDeclaringClass();
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+        MethodHandle target = lookup.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                MethodType.methodType(BiConsumer.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                target,
+                MethodType.methodType(void.class, owner, eventType));
+        return (BiConsumer<Object, Object>) site.getTarget().invoke();
+    }
+}
@@ -0,0 +1,141 @@
+package com.Lino.territoryBeacons.tasks;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.function.Consumer;
+
+public class BukkitPluginScheduler implements PluginScheduler {
+
+    private final Plugin plugin;
+
+    public BukkitPluginScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return false;
+    }
+
+    @Override
+    public ScheduledTask runGlobal(Runnable task) {
+        return wrap(Bukkit.getScheduler().runTask(plugin, task));
+    }
+
+    @Override
+    public ScheduledTask runGlobalTimer(Consumer<ScheduledTask> task, long delayTicks, long periodTicks) {
+        return new Timer(task).start(delayTicks, periodTicks, false);
+    }
+
+    @Override
+    public ScheduledTask runAsync(Runnable task) {
+        return wrap(Bukkit.getScheduler().runTaskAsynchronously(plugin, task));
+    }
+
+    @Override
+    public ScheduledTask runAsyncTimer(Consumer<ScheduledTask> task, long delayTicks, long periodTicks) {
+        return new Timer(task).start(delayTicks, periodTicks, true);
+    }
+
+    @Override
+    public ScheduledTask runAt(Location location, Runnable task) {
+        return runGlobal(task);
+    }
+
+    @Override
+    public ScheduledTask runAtTimer(Location location, Consumer<ScheduledTask> task, long delayTicks, long periodTicks) {
+        return runGlobalTimer(task, delayTicks, periodTicks);
+    }
+
+    @Override
+    public ScheduledTask runFor(Entity entity, Runnable task) {
+        return runFor(entity, task, null);
+    }
+
+    @Override
+    public ScheduledTask runFor(Entity entity, Runnable task, Runnable retired) {
+        return runGlobal(() -> {
+            if (isPresent(entity)) {
+                task.run();
+            } else if (retired != null) {
+                retired.run();
+            }
+        });
+    }
+
+    @Override
+    public ScheduledTask runForLater(Entity entity, Runnable task, long delayTicks) {
+        return wrap(Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            if (isPresent(entity)) task.run();
+        }, delayTicks));
+    }
+
+    @Override
+    public ScheduledTask runForTimer(Entity entity, Consumer<ScheduledTask> task, long delayTicks, long periodTicks) {
+        return runGlobalTimer(handle -> {
+            if (isPresent(entity)) {
+                task.accept(handle);
+            } else {
+                handle.cancel();
+            }
+        }, delayTicks, periodTicks);
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(Location location) {
+        return Bukkit.isPrimaryThread();
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(Entity entity) {
+        return Bukkit.isPrimaryThread();
+    }
+
+    // Mirrors Folia retiring an entity's scheduler once it has left the server
+    private static boolean isPresent(Entity entity) {
+        return entity instanceof Player ? ((Player) entity).isOnline() : entity.isValid();
+    }
+
+    private static ScheduledTask wrap(BukkitTask task) {
+        return new ScheduledTask() {
+            @Override
+            public void cancel() {
+                task.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return task.isCancelled();
+            }
+        };
+    }
+
+    private final class Timer extends BukkitRunnable implements ScheduledTask {
+
+        private final Consumer<ScheduledTask> task;
+
+        private Timer(Consumer<ScheduledTask> task) {
+            this.task = task;
+        }
+
+        private ScheduledTask start(long delayTicks, long periodTicks, boolean async) {
+            if (async) {
+                runTaskTimerAsynchronously(plugin, delayTicks, periodTicks);
+            } else {
+                runTaskTimer(plugin, delayTicks, periodTicks);
+            }
+            return this;
+        }
+
+        @Override
+        public void run() {
+            task.accept(this);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.Lino.territoryBeacons.tasks;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// The build targets the Spigot API, so Folia's schedulers are reached through reflection.
+// Folia rejects delays below one tick, hence the Math.max calls.
+public class FoliaPluginScheduler implements PluginScheduler {
+
+    private static final long MILLIS_PER_TICK = 50L;
+
+    private final Plugin plugin;
+    private final Object globalScheduler;
+    private final Object regionScheduler;
+    private final Object asyncScheduler;
+    private final Method globalRun;
+    private final Method globalRunAtFixedRate;
+    private final Method regionRun;
+    private final Method regionRunAtFixedRate;
+    private final Method asyncRunNow;
+    private final Method asyncRunAtFixedRate;
+    private final Method entityGetScheduler;
+    private final Method entityRun;
+    private final Method entityRunDelayed;
+    private final Method entityRunAtFixedRate;
+    private final Method ownsLocation;
+    private final Method ownsEntity;
+    private final Method taskCancel;
+    private final Method taskIsCancelled;
+
+    public static boolean isSupported() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    public FoliaPluginScheduler(Plugin plugin) {
+        this.plugin = plugin;
+        try {
+            globalScheduler = Bukkit.class.getMethod("getGlobalRegionScheduler").invoke(null);
+            regionScheduler = Bukkit.class.getMethod("getRegionScheduler").invoke(null);
+            asyncScheduler = Bukkit.class.getMethod("getAsyncScheduler").invoke(null);
+
+            Class<?> globalType = Class.forName("io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler");
+            globalRun = globalType.getMethod("run", Plugin.class, Consumer.class);
+            globalRunAtFixedRate = globalType.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+
+            Class<?> regionType = Class.forName("io.papermc.paper.threadedregions.scheduler.RegionScheduler");
+            regionRun = regionType.getMethod("run", Plugin.class, Location.class, Consumer.class);
+            regionRunAtFixedRate = regionType.getMethod("runAtFixedRate", Plugin.class, Location.class, Consumer.class, long.class, long.class);
+
+            Class<?> asyncType = Class.forName("io.papermc.paper.threadedregions.scheduler.AsyncScheduler");
+            asyncRunNow = asyncType.getMethod("runNow", Plugin.class, Consumer.class);
+            asyncRunAtFixedRate = asyncType.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class, TimeUnit.class);
+
+            Class<?> entityType = Class.forName("io.papermc.paper.threadedregions.scheduler.EntityScheduler");
+            entityGetScheduler = Entity.class.getMethod("getScheduler");
+            entityRun = entityType.getMethod("run", Plugin.class, Consumer.class, Runnable.class);
+            entityRunDelayed = entityType.getMethod("runDelayed", Plugin.class, Consumer.class, Runnable.class, long.class);
+            entityRunAtFixedRate = entityType.getMethod("runAtFixedRate", Plugin.class, Consumer.class, Runnable.class, long.class, long.class);
+
+            ownsLocation = Bukkit.class.getMethod("isOwnedByCurrentRegion", Location.class);
+            ownsEntity = Bukkit.class.getMethod("isOwnedByCurrentRegion", Entity.class);
+
+            Class<?> taskType = Class.forName("io.papermc.paper.threadedregions.scheduler.ScheduledTask");
+            taskCancel = taskType.getMethod("cancel");
+            taskIsCancelled = taskType.getMethod("isCancelled");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Folia scheduler API not available", e);
+        }
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return true;
+    }
+
+    @Override
+    public ScheduledTask runGlobal(Runnable task) {
+        FoliaTask handle = new FoliaTask();
+        return handle.bind(invoke(globalRun, globalScheduler, plugin, handle.wrap(ignored -> task.run())));
+    }
+
+    @Override
+    public ScheduledTask runGlobalTimer(Consumer<ScheduledTask> task, long delayTicks, long periodTicks) {
+        FoliaTask handle = new FoliaTask();
+        return handle.bind(invoke(globalRunAtFixedRate, globalScheduler, plugin, handle.wrap(task),
+                Math.max(1, delayTicks), Math.max(1, periodTicks)));
+    }
+
+    @Override
+    public ScheduledTask runAsync(Runnable task) {
+        FoliaTask handle = new FoliaTask();
+        return handle.bind(invoke(asyncRunNow, asyncScheduler, plugin, handle.wrap(ignored -> task.run())));
+    }
+
+    @Override
+    public ScheduledTask runAsyncTimer(Consumer<ScheduledTask> task, long delayTicks, long periodTicks) {
+        FoliaTask handle = new FoliaTask();
+        return handle.bind(invoke(asyncRunAtFixedRate, asyncScheduler, plugin, handle.wrap(task),
+                Math.max(1, delayTicks) * MILLIS_PER_TICK, Math.max(1, periodTicks) * MILLIS_PER_TICK, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public ScheduledTask runAt(Location location, Runnable task) {
+        FoliaTask handle = new FoliaTask();
+        return handle.bind(invoke(regionRun, regionScheduler, plugin, location, handle.wrap(ignored -> task.run())));
+    }
+
+    @Override
+    public ScheduledTask runAtTimer(Location location, Consumer<ScheduledTask> task, long delayTicks, long periodTicks) {
+        FoliaTask handle = new FoliaTask();
+        return handle.bind(invoke(regionRunAtFixedRate, regionScheduler, plugin, location, handle.wrap(task),
+                Math.max(1, delayTicks), Math.max(1, periodTicks)));
+    }
+
+    @Override
+    public ScheduledTask runFor(Entity entity, Runnable task) {
+        return runFor(entity, task, null);
+    }
+
+    @Override
+    public ScheduledTask runFor(Entity entity, Runnable task, Runnable retired) {
+        FoliaTask handle = new FoliaTask();
+        Object scheduled = invoke(entityRun, entityScheduler(entity), plugin, handle.wrap(ignored -> task.run()), retired);
+        // Folia returns null without calling retired when the entity was already gone
+        if (scheduled == null && retired != null) {
+            retired.run();
+        }
+        return handle.bind(scheduled);
+    }
+
+    @Override
+    public ScheduledTask runForLater(Entity entity, Runnable task, long delayTicks) {
+        FoliaTask handle = new FoliaTask();
+        return handle.bind(invoke(entityRunDelayed, entityScheduler(entity), plugin, handle.wrap(ignored -> task.run()), null,
+                Math.max(1, delayTicks)));
+    }
+
+    @Override
+    public ScheduledTask runForTimer(Entity entity, Consumer<ScheduledTask> task, long delayTicks, long periodTicks) {
+        FoliaTask handle = new FoliaTask();
+        return handle.bind(invoke(entityRunAtFixedRate, entityScheduler(entity), plugin, handle.wrap(task), null,
+                Math.max(1, delayTicks), Math.max(1, periodTicks)));
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(Location location) {
+        return (Boolean) invoke(ownsLocation, null, location);
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(Entity entity) {
+        return (Boolean) invoke(ownsEntity, null, entity);
+    }
+
+    // Folia refuses new tasks from a disabled plugin; shutdown cleanup runs after the regions have stopped
+    @Override
+    public void executeAt(Location location, Runnable task) {
+        if (!plugin.isEnabled() || isOwnedByCurrentThread(location)) {
+            task.run();
+        } else {
+            runAt(location, task);
+        }
+    }
+
+    @Override
+    public void executeFor(Entity entity, Runnable task) {
+        if (!plugin.isEnabled() || isOwnedByCurrentThread(entity)) {
+            task.run();
+        } else {
+            runFor(entity, task);
+        }
+    }
+
+    private Object entityScheduler(Entity entity) {
+        return invoke(entityGetScheduler, entity);
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class FoliaTask implements ScheduledTask {
+
+        private volatile Object task;
+        private volatile boolean cancelled;
+
+        // The first run may start before the scheduling call returns, so bind from both sides
+        private Consumer<Object> wrap(Consumer<ScheduledTask> body) {
+            return foliaTask -> {
+                bind(foliaTask);
+                body.accept(this);
+            };
+        }
+
+        private FoliaTask bind(Object foliaTask) {
+            if (task == null && foliaTask != null) {
+                task = foliaTask;
+            }
+            if (cancelled && foliaTask != null) {
+                invoke(taskCancel, foliaTask);
+            }
+            return this;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Object current = task;
+            if (current != null) {
+                invoke(taskCancel, current);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            Object current = task;
+            return cancelled || (current != null && (Boolean) invoke(taskIsCancelled, current));
+        }
+    }
+}
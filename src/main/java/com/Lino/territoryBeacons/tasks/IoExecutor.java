@@ -0,0 +1,270 @@
+package com.Lino.territoryBeacons.tasks;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Blocking I/O off the game threads. Each lane queues its own jobs and never runs more than its
+// concurrency limit at once, so a slow HTTP lane cannot hold up database writes or vice versa.
+// Uses virtual threads when the runtime has them, otherwise a pool sized to the lane limits.
+public class IoExecutor {
+
+    private final Logger logger;
+    private final ExecutorService backing;
+    private final boolean virtualThreads;
+    private final Map<IoLane, Lane> lanes = new EnumMap<>(IoLane.class);
+
+    public IoExecutor(Logger logger) {
+        this.logger = logger;
+        ExecutorService virtual = createVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.backing = virtual != null ? virtual : createPlatformPool();
+        for (IoLane lane : IoLane.values()) {
+            lanes.put(lane, new Lane(lane));
+        }
+    }
+
+    public CompletableFuture<Void> submit(IoLane lane, Runnable task) {
+        Job job = new Job(task);
+        lanes.get(lane).enqueue(job);
+        return job.future;
+    }
+
+    // Called on disable. The lanes named here are run to completion with no time limit: their
+    // workers finish the job in hand and stop, then the caller runs whatever is still queued, so
+    // nothing touches the database after this returns. Every other lane's queue is dropped.
+    // Anything submitted afterwards to a drained lane runs on the submitting thread.
+    public void shutdown(IoLane... drained) {
+        Set<IoLane> kept = EnumSet.noneOf(IoLane.class);
+        kept.addAll(Arrays.asList(drained));
+        for (Lane lane : lanes.values()) {
+            lane.stopping = true;
+            if (!kept.contains(lane.type)) {
+                int dropped = lane.drop();
+                if (dropped > 0) {
+                    logger.info("Dropped " + dropped + " queued " + lane.type + " jobs on shutdown.");
+                }
+            }
+        }
+        boolean interrupted = false;
+        for (IoLane type : kept) {
+            Lane lane = lanes.get(type);
+            while (lane.workers.get() > 0) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            lane.inline = true;
+            lane.drainInline();
+        }
+        backing.shutdown();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public Collection<Lane> getLanes() {
+        return Collections.unmodifiableCollection(lanes.values());
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            // Compiled for Java 17, so the Java 21 builder API is looked up at runtime
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "TerritoryBeacons-io-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService createPlatformPool() {
+        int threads = 0;
+        for (IoLane lane : IoLane.values()) {
+            threads += lane.getConcurrency();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "TerritoryBeacons-io-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static final class Job {
+        private final Runnable task;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Job(Runnable task) {
+            this.task = task;
+        }
+    }
+
+    public final class Lane {
+        private final IoLane type;
+        private final Queue<Job> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger workers = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicInteger peakQueued = new AtomicInteger();
+        private volatile boolean stopping;
+        private volatile boolean inline;
+        private volatile boolean dropped;
+
+        private Lane(IoLane type) {
+            this.type = type;
+        }
+
+        private void enqueue(Job job) {
+            if (dropped) {
+                job.future.completeExceptionally(new CancellationException(type + " lane is shut down"));
+                return;
+            }
+            queue.add(job);
+            peakQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+            if (inline) {
+                drainInline();
+            } else {
+                spawnWorker();
+            }
+        }
+
+        private void spawnWorker() {
+            while (!stopping && !queue.isEmpty()) {
+                int current = workers.get();
+                if (current >= type.getConcurrency()) return;
+                if (workers.compareAndSet(current, current + 1)) {
+                    try {
+                        backing.execute(this::drain);
+                    } catch (RejectedExecutionException e) {
+                        workers.decrementAndGet();
+                        drainInline();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Job job;
+                while (!stopping && (job = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    run(job);
+                }
+            } finally {
+                workers.decrementAndGet();
+            }
+            // A job may have arrived between the last poll and giving up the worker slot
+            spawnWorker();
+        }
+
+        // Synchronized so jobs drained on callers still run one at a time, in order
+        private synchronized void drainInline() {
+            Job job;
+            while ((job = queue.poll()) != null) {
+                queued.decrementAndGet();
+                run(job);
+            }
+        }
+
+        private int drop() {
+            dropped = true;
+            int count = 0;
+            Job job;
+            while ((job = queue.poll()) != null) {
+                queued.decrementAndGet();
+                job.future.completeExceptionally(new CancellationException(type + " lane is shut down"));
+                count++;
+            }
+            return count;
+        }
+
+        private void run(Job job) {
+            long wait = System.nanoTime() - job.enqueuedAt;
+            totalWaitNanos.add(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+            running.incrementAndGet();
+            try {
+                job.task.run();
+                completed.increment();
+                job.future.complete(null);
+            } catch (Throwable t) {
+                failed.increment();
+                logger.log(Level.SEVERE, "I/O task failed on lane " + type, t);
+                job.future.completeExceptionally(t);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        public IoLane getType() {
+            return type;
+        }
+
+        public int getQueued() {
+            return queued.get();
+        }
+
+        public int getPeakQueued() {
+            return peakQueued.get();
+        }
+
+        public int getRunning() {
+            return running.get();
+        }
+
+        public long getCompleted() {
+            return completed.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public double getAverageWaitMillis() {
+            long count = completed.sum() + failed.sum();
+            return count == 0 ? 0.0 : totalWaitNanos.sum() / (double) count / 1_000_000.0;
+        }
+
+        public double getMaxWaitMillis() {
+            return maxWaitNanos.get() / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.Lino.territoryBeacons.tasks;
+
+public enum IoLane {
+    // One SQLite connection; a single worker also keeps writes in submission order
+    DATABASE(1),
+    // Marker add/remove for the same claim must not overtake each other
+    MAP(1),
+    AVATAR(4),
+    // Vault providers are not all thread-safe, and a refund must never overtake its withdrawal
+    ECONOMY(1),
+    // Metrics text file; one writer so two exports never race on the temp file
+    EXPORT(1);
+
+    private final int concurrency;
+
+    IoLane(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+}
@@ -0,0 +1,54 @@
+package com.Lino.territoryBeacons.tasks;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+
+import java.util.function.Consumer;
+
+// Where work runs. On Bukkit every variant ends up on the main thread; on Folia global jobs go to
+// the global region, block work to the region owning the location and player work to the entity.
+public interface PluginScheduler {
+
+    boolean isRegionized();
+
+    ScheduledTask runGlobal(Runnable task);
+
+    ScheduledTask runGlobalTimer(Consumer<ScheduledTask> task, long delayTicks, long periodTicks);
+
+    ScheduledTask runAsync(Runnable task);
+
+    ScheduledTask runAsyncTimer(Consumer<ScheduledTask> task, long delayTicks, long periodTicks);
+
+    ScheduledTask runAt(Location location, Runnable task);
+
+    ScheduledTask runAtTimer(Location location, Consumer<ScheduledTask> task, long delayTicks, long periodTicks);
+
+    ScheduledTask runFor(Entity entity, Runnable task);
+
+    // retired runs instead of task when the entity has left before the task could run
+    ScheduledTask runFor(Entity entity, Runnable task, Runnable retired);
+
+    ScheduledTask runForLater(Entity entity, Runnable task, long delayTicks);
+
+    ScheduledTask runForTimer(Entity entity, Consumer<ScheduledTask> task, long delayTicks, long periodTicks);
+
+    boolean isOwnedByCurrentThread(Location location);
+
+    boolean isOwnedByCurrentThread(Entity entity);
+
+    default void executeAt(Location location, Runnable task) {
+        if (isOwnedByCurrentThread(location)) {
+            task.run();
+        } else {
+            runAt(location, task);
+        }
+    }
+
+    default void executeFor(Entity entity, Runnable task) {
+        if (isOwnedByCurrentThread(entity)) {
+            task.run();
+        } else {
+            runFor(entity, task);
+        }
+    }
+}
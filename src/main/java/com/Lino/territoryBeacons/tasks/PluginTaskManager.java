@@ -1,149 +1,211 @@
 package com.Lino.territoryBeacons.tasks;
 
-import com.Lino.territoryBeacons.Territory;
 import com.Lino.territoryBeacons.TerritoryBeacons;
 import com.Lino.territoryBeacons.managers.MessageManager;
+import com.Lino.territoryBeacons.metrics.LatencyHistogram;
+import com.Lino.territoryBeacons.metrics.MetricFamily;
+import com.Lino.territoryBeacons.metrics.Metrics;
+import com.Lino.territoryBeacons.metrics.PrometheusExporter;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.potion.PotionEffect;
-import org.bukkit.potion.PotionEffectType;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
 public class PluginTaskManager {
 
     private final TerritoryBeacons plugin;
     private final MessageManager messageManager;
-    private final List<BukkitTask> tasks = new ArrayList<>();
-    private final Map<String, PotionEffectType> effectMap = new HashMap<>();
+    private final PluginScheduler scheduler;
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    private final Map<UUID, ScheduledTask> playerTasks = new ConcurrentHashMap<>();
+    private final TickScheduler tickScheduler;
+    private final Metrics metrics;
+    private final Queue<Location> pendingResizes = new ConcurrentLinkedQueue<>();
 
     public PluginTaskManager(TerritoryBeacons plugin) {
         this.plugin = plugin;
         this.messageManager = plugin.getMessageManager();
-        initializeEffectMap();
-    }
-
-    private void initializeEffectMap() {
-        effectMap.put("regeneration", PotionEffectType.REGENERATION);
-        effectMap.put("speed", PotionEffectType.SPEED);
-        effectMap.put("jump", PotionEffectType.JUMP_BOOST);
-        effectMap.put("haste", PotionEffectType.HASTE);
-        effectMap.put("fire_resistance", PotionEffectType.FIRE_RESISTANCE);
-        effectMap.put("strength", PotionEffectType.STRENGTH);
-        effectMap.put("resistance", PotionEffectType.RESISTANCE);
-        effectMap.put("luck", PotionEffectType.LUCK);
-        effectMap.put("night_vision", PotionEffectType.NIGHT_VISION);
-        effectMap.put("water_breathing", PotionEffectType.WATER_BREATHING);
+        this.scheduler = plugin.getPluginScheduler();
+        this.tickScheduler = new TickScheduler(plugin);
+        this.metrics = plugin.getMetrics();
     }
 
     public void startAllTasks() {
         tasks.add(startDecayTask());
         tasks.add(startSaveTask());
-        tasks.add(startTerritoryCheckTask());
-        tasks.add(startEffectsTask());
+        if (scheduler.isRegionized()) {
+            Bukkit.getOnlinePlayers().forEach(this::startPlayerTasks);
+        } else {
+            registerSlicedJobs();
+            tasks.add(tickScheduler.start());
+        }
+        tasks.add(startCleanupTask());
+        tasks.add(startMetricsExportTask());
         if (plugin.getPl3xMapManager() != null) {
             tasks.add(startMapUpdateTask());
         }
     }
 
     public void cancelAllTasks() {
-        tasks.forEach(BukkitTask::cancel);
+        tasks.forEach(ScheduledTask::cancel);
         tasks.clear();
+        playerTasks.values().forEach(ScheduledTask::cancel);
+        playerTasks.clear();
+        tickScheduler.clear();
     }
 
-    private BukkitTask startMapUpdateTask() {
-        return new BukkitRunnable() {
-            @Override
-            public void run() {
-                plugin.getTerritoryManager().getAllTerritories().forEach(
-                        territory -> plugin.getPl3xMapManager().addOrUpdateTerritoryMarker(territory)
-                );
-            }
-        }.runTaskTimerAsynchronously(plugin, 20L * 60, 20L * 60 * 5);
-    }
-
-    private BukkitTask startDecayTask() {
-        return new BukkitRunnable() {
-            @Override
-            public void run() {
-                long currentTime = System.currentTimeMillis();
-
-                plugin.getTerritoryManager().getAllTerritories().forEach(territory -> {
-                    Player owner = Bukkit.getPlayer(territory.getOwnerUUID());
-                    if (owner == null || !owner.isOnline()) {
-                        long lastSeen = plugin.getPlayerManager().getPlayerLastSeen(territory.getOwnerUUID());
-                        long hoursOffline = (currentTime - lastSeen) / 3600000L;
-
-                        if (hoursOffline >= plugin.getConfigManager().getDecayTime()) {
-                            double decay = 0.1 * (hoursOffline - plugin.getConfigManager().getDecayTime() + 1);
-                            territory.decayInfluence(decay);
-
-                            if (territory.getInfluence() <= 0) {
-                                Location beaconLoc = territory.getBeaconLocation();
-                                Bukkit.getScheduler().runTask(plugin, () -> {
-                                    plugin.getTerritoryManager().removeTerritory(beaconLoc);
-                                    if (beaconLoc.getBlock().getType() == Material.BEACON) {
-                                        beaconLoc.getBlock().setType(Material.AIR);
-                                        beaconLoc.getWorld().dropItemNaturally(beaconLoc, new ItemStack(Material.BEACON));
-                                    }
-                                    Bukkit.broadcastMessage(messageManager.get("territory-decay-message", "%owner%", territory.getOwnerName()));
-                                    Bukkit.getOnlinePlayers().forEach(p -> p.playSound(p.getLocation(), Sound.ENTITY_WITHER_DEATH, 0.5f, 0.8f));
-                                });
-                            }
-                        }
-                    } else {
-                        territory.restoreInfluence(0.05);
-                    }
-                });
-            }
-        }.runTaskTimerAsynchronously(plugin, 20 * 60 * 60, 20 * 60 * 60);
+    public TickScheduler getTickScheduler() {
+        return tickScheduler;
     }
 
-    private BukkitTask startSaveTask() {
-        return new BukkitRunnable() {
-            @Override
-            public void run() {
-                plugin.getTerritoryManager().getAllTerritories().forEach(t -> plugin.getDatabaseManager().updateTerritoryInDatabase(t));
-                plugin.getPlayerManager().saveAndClearPlayerData();
-            }
-        }.runTaskTimerAsynchronously(plugin, 20 * 60 * 5, 20 * 60 * 5);
+    // On a region-threaded server there is no single tick to budget, so each player
+    // gets a timer on their own entity scheduler instead of a slot in the sliced jobs
+    public void startPlayerTasks(Player player) {
+        if (!scheduler.isRegionized()) return;
+        ScheduledTask task = scheduler.runForTimer(player, timed("player-tick", handle -> {
+            plugin.getPlayerManager().checkPlayerTerritory(player);
+            plugin.getEffectManager().refreshIfDue(player);
+        }), 20, 20);
+        ScheduledTask previous = playerTasks.put(player.getUniqueId(), task);
+        if (previous != null) {
+            previous.cancel();
+        }
     }
 
-    private BukkitTask startTerritoryCheckTask() {
-        return new BukkitRunnable() {
-            @Override
-            public void run() {
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    plugin.getPlayerManager().checkPlayerTerritory(player);
-                }
-            }
-        }.runTaskTimer(plugin, 0, 20);
-    }
-
-    private BukkitTask startEffectsTask() {
-        return new BukkitRunnable() {
-            @Override
-            public void run() {
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    Territory territory = plugin.getTerritoryManager().getTerritoryAt(player.getLocation());
-                    if (territory != null && territory.canBuild(player)) { // Apply to owner and trusted
-                        for (String effectName : territory.getActiveEffects()) {
-                            PotionEffectType effectType = effectMap.get(effectName);
-                            if (effectType != null) {
-                                player.addPotionEffect(new PotionEffect(effectType, 100, 0, true, false));
-                            }
+    public void stopPlayerTasks(Player player) {
+        ScheduledTask task = playerTasks.remove(player.getUniqueId());
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    public void scheduleResizes(Collection<Location> beacons) {
+        if (scheduler.isRegionized()) {
+            beacons.forEach(beaconLoc -> scheduler.runAt(beaconLoc, () -> plugin.getTerritoryManager().resizeTerritory(beaconLoc)));
+        } else {
+            pendingResizes.addAll(beacons);
+        }
+    }
+
+    private void registerSlicedJobs() {
+        tickScheduler.register("territory-check", 20, 1.5, this::onlinePlayers,
+                player -> plugin.getPlayerManager().checkPlayerTerritory(player));
+        tickScheduler.register("effect-refresh", 20, 0.5, this::onlinePlayers,
+                player -> plugin.getEffectManager().refreshIfDue(player));
+        tickScheduler.register("territory-resize", 20, 1.0, this::takePendingResizes,
+                beaconLoc -> plugin.getTerritoryManager().resizeTerritory(beaconLoc));
+    }
+
+    private List<Location> takePendingResizes() {
+        List<Location> batch = new ArrayList<>();
+        Location beaconLoc;
+        while ((beaconLoc = pendingResizes.poll()) != null) {
+            batch.add(beaconLoc);
+        }
+        return batch;
+    }
+
+    private List<Player> onlinePlayers() {
+        return new ArrayList<>(Bukkit.getOnlinePlayers());
+    }
+
+    private ScheduledTask startMapUpdateTask() {
+        return scheduler.runAsyncTimer(timed("map-update", task -> plugin.getTerritoryManager().getAllTerritories().forEach(
+                territory -> plugin.getPl3xMapManager().addOrUpdateTerritoryMarker(territory)
+        )), 20L * 60, 20L * 60 * 5);
+    }
+
+    private ScheduledTask startDecayTask() {
+        return scheduler.runAsyncTimer(timed("decay", task -> {
+            long currentTime = System.currentTimeMillis();
+
+            plugin.getTerritoryManager().getAllTerritories().forEach(territory -> {
+                Player owner = Bukkit.getPlayer(territory.getOwnerUUID());
+                if (owner == null || !owner.isOnline()) {
+                    long lastSeen = plugin.getPlayerManager().getPlayerLastSeen(territory.getOwnerUUID());
+                    long hoursOffline = (currentTime - lastSeen) / 3600000L;
+
+                    if (hoursOffline >= plugin.getConfigManager().getDecayTime()) {
+                        double decay = 0.1 * (hoursOffline - plugin.getConfigManager().getDecayTime() + 1);
+                        territory.decayInfluence(decay);
+
+                        if (territory.getInfluence() <= 0) {
+                            Location beaconLoc = territory.getBeaconLocation();
+                            scheduler.runAt(beaconLoc, () -> {
+                                plugin.getTerritoryManager().removeTerritory(beaconLoc);
+                                if (beaconLoc.getBlock().getType() == Material.BEACON) {
+                                    beaconLoc.getBlock().setType(Material.AIR);
+                                    beaconLoc.getWorld().dropItemNaturally(beaconLoc, new ItemStack(Material.BEACON));
+                                }
+                                Bukkit.broadcastMessage(messageManager.get("territory-decay-message", "%owner%", territory.getOwnerName()));
+                                Bukkit.getOnlinePlayers().forEach(p -> scheduler.executeFor(p,
+                                        () -> p.playSound(p.getLocation(), Sound.ENTITY_WITHER_DEATH, 0.5f, 0.8f)));
+                            });
                         }
                     }
+                } else {
+                    territory.restoreInfluence(0.05);
                 }
+            });
+            plugin.getTerritoryManager().markTerritoriesChanged();
+        }), 20 * 60 * 60, 20 * 60 * 60);
+    }
+
+    private ScheduledTask startSaveTask() {
+        return scheduler.runAsyncTimer(timed("save", task -> {
+            plugin.getTerritoryManager().getAllTerritories().forEach(t -> plugin.getDatabaseManager().updateTerritoryInDatabase(t));
+            plugin.getPlayerManager().savePlayerData();
+        }), 20 * 60 * 5, 20 * 60 * 5);
+    }
+
+    private ScheduledTask startCleanupTask() {
+        return scheduler.runGlobalTimer(timed("cleanup", task -> plugin.getPlayerManager().cleanupUnusedData()), 20L * 60 * 10, 20L * 60 * 60);
+    }
+
+    // Checks once a second so a reload that changes the interval takes effect without a restart
+    private ScheduledTask startMetricsExportTask() {
+        long[] nextExport = {0L};
+        return scheduler.runAsyncTimer(task -> {
+            int interval = plugin.getConfigManager().getMetricsExportIntervalSeconds();
+            if (!metrics.isEnabled() || interval <= 0) return;
+            long now = System.currentTimeMillis();
+            if (now < nextExport[0]) return;
+            nextExport[0] = now + interval * 1000L;
+
+            File file = new File(plugin.getDataFolder(), plugin.getConfigManager().getMetricsExportFile());
+            plugin.getIoExecutor().submit(IoLane.EXPORT, () -> {
+                try {
+                    PrometheusExporter.write(metrics, file);
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Could not write metrics to " + file + ": " + e.getMessage());
+                }
+            });
+        }, 20, 20);
+    }
+
+    private Consumer<ScheduledTask> timed(String name, Consumer<ScheduledTask> body) {
+        LatencyHistogram histogram = metrics.histogram(MetricFamily.TASK, name);
+        return task -> {
+            long start = metrics.start();
+            try {
+                body.accept(task);
+            } finally {
+                histogram.stop(start);
             }
-        }.runTaskTimer(plugin, 0, 80);
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+package com.Lino.territoryBeacons.tasks;
+
+public interface ScheduledTask {
+
+    void cancel();
+
+    boolean isCancelled();
+}
@@ -0,0 +1,138 @@
+package com.Lino.territoryBeacons.tasks;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class SlicedJob<T> {
+
+    private final String name;
+    private final int intervalTicks;
+    private final double defaultBudgetMillis;
+    private final Supplier<List<T>> source;
+    private final Consumer<T> action;
+
+    private List<T> pass;
+    private int cursor;
+    private int offset;
+    private int firstSliceSize;
+    private long passStartTick;
+    private long nextStartTick;
+
+    private volatile double budgetMillis;
+    private volatile long passes;
+    private volatile long itemsProcessed;
+    private volatile long overruns;
+    private volatile long deferrals;
+    private volatile long lastPassTicks;
+    private volatile long lastSliceNanos;
+    private volatile long maxSliceNanos;
+
+    SlicedJob(String name, int intervalTicks, double defaultBudgetMillis, Supplier<List<T>> source, Consumer<T> action) {
+        this.name = name;
+        this.intervalTicks = intervalTicks;
+        this.defaultBudgetMillis = defaultBudgetMillis;
+        this.budgetMillis = defaultBudgetMillis;
+        this.source = source;
+        this.action = action;
+    }
+
+    boolean hasWork(long tick) {
+        return pass != null || tick >= nextStartTick;
+    }
+
+    void defer() {
+        deferrals++;
+    }
+
+    void runSlice(long tick, long budgetNanos) {
+        if (pass == null) {
+            if (tick < nextStartTick) return;
+            pass = source.get();
+            cursor = 0;
+            passStartTick = tick;
+            // Start each pass where the previous first slice stopped so the same entries are not always served last
+            offset = pass.isEmpty() ? 0 : (offset + firstSliceSize) % pass.size();
+            firstSliceSize = -1;
+        }
+
+        int size = pass.size();
+        long start = System.nanoTime();
+        long elapsed = 0;
+        int processed = 0;
+        while (cursor < size) {
+            action.accept(pass.get((offset + cursor) % size));
+            cursor++;
+            processed++;
+            elapsed = System.nanoTime() - start;
+            if (elapsed >= budgetNanos && cursor < size) {
+                overruns++;
+                break;
+            }
+        }
+        itemsProcessed += processed;
+        lastSliceNanos = elapsed;
+        if (elapsed > maxSliceNanos) {
+            maxSliceNanos = elapsed;
+        }
+        if (firstSliceSize < 0) {
+            firstSliceSize = processed;
+        }
+
+        if (cursor >= size) {
+            passes++;
+            lastPassTicks = tick - passStartTick + 1;
+            nextStartTick = Math.max(tick + 1, passStartTick + intervalTicks);
+            pass = null;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getDefaultBudgetMillis() {
+        return defaultBudgetMillis;
+    }
+
+    public double getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    void setBudgetMillis(double budgetMillis) {
+        this.budgetMillis = budgetMillis;
+    }
+
+    public int getBacklog() {
+        List<T> current = pass;
+        return current == null ? 0 : Math.max(0, current.size() - cursor);
+    }
+
+    public long getPasses() {
+        return passes;
+    }
+
+    public long getItemsProcessed() {
+        return itemsProcessed;
+    }
+
+    public long getOverruns() {
+        return overruns;
+    }
+
+    public long getDeferrals() {
+        return deferrals;
+    }
+
+    public long getLastPassTicks() {
+        return lastPassTicks;
+    }
+
+    public long getLastSliceNanos() {
+        return lastSliceNanos;
+    }
+
+    public long getMaxSliceNanos() {
+        return maxSliceNanos;
+    }
+}
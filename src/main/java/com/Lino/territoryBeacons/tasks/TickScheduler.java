@@ -0,0 +1,80 @@
+package com.Lino.territoryBeacons.tasks;
+
+import com.Lino.territoryBeacons.TerritoryBeacons;
+import com.Lino.territoryBeacons.managers.ConfigManager;
+import com.Lino.territoryBeacons.metrics.MetricFamily;
+import com.Lino.territoryBeacons.metrics.Metrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Runs registered jobs a slice at a time on the main thread, never spending more than the
+// configured budget per tick. Jobs that do not finish carry their cursor to the next tick.
+public class TickScheduler {
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final TerritoryBeacons plugin;
+    private final List<SlicedJob<?>> jobs = new CopyOnWriteArrayList<>();
+    private long currentTick = 0;
+    private int firstJob = 0;
+
+    public TickScheduler(TerritoryBeacons plugin) {
+        this.plugin = plugin;
+    }
+
+    public <T> SlicedJob<T> register(String name, int intervalTicks, double budgetMillis, Supplier<List<T>> source, Consumer<T> action) {
+        SlicedJob<T> job = new SlicedJob<>(name, intervalTicks, budgetMillis, source, action);
+        jobs.add(job);
+        return job;
+    }
+
+    public void clear() {
+        jobs.clear();
+    }
+
+    public ScheduledTask start() {
+        return plugin.getPluginScheduler().runGlobalTimer(task -> tick(), 1, 1);
+    }
+
+    private void tick() {
+        currentTick++;
+        int count = jobs.size();
+        if (count == 0) return;
+
+        ConfigManager config = plugin.getConfigManager();
+        Metrics metrics = plugin.getMetrics();
+        long tickBudget = (long) (config.getTickBudgetMillis() * NANOS_PER_MILLI);
+        long tickStart = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            SlicedJob<?> job = jobs.get((firstJob + i) % count);
+            if (!job.hasWork(currentTick)) continue;
+
+            double jobBudgetMillis = config.getJobBudgetMillis(job.getName(), job.getDefaultBudgetMillis());
+            job.setBudgetMillis(jobBudgetMillis);
+            long remaining = tickBudget - (System.nanoTime() - tickStart);
+            if (remaining <= 0) {
+                job.defer();
+                continue;
+            }
+            long sliceStart = metrics.start();
+            job.runSlice(currentTick, Math.min(remaining, (long) (jobBudgetMillis * NANOS_PER_MILLI)));
+            if (sliceStart != 0L) {
+                metrics.histogram(MetricFamily.TASK, job.getName()).stop(sliceStart);
+            }
+        }
+        // Rotate the order so an expensive job early in the list cannot starve the later ones
+        firstJob = (firstJob + 1) % count;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public List<SlicedJob<?>> getJobs() {
+        return Collections.unmodifiableList(jobs);
+    }
+}
@@ -0,0 +1,244 @@
+package com.Lino.territoryBeacons.util;
+
+import com.Lino.territoryBeacons.Territory;
+import org.bukkit.World;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+// Per-world bit filter over chunk keys. A clear bit means no territory touches that chunk,
+// a set bit means "maybe" and the caller falls back to the exact containment check.
+// Each world counts how many territories cover every chunk and how many covered chunks hash to
+// every bit, so adding or removing a claim only touches that claim's own chunks. Writers hold the
+// monitor; readers only see the bit array, which is updated in place.
+public class ChunkFilter {
+
+    private static final int MIN_BITS = 1 << 16;
+    private static final int MAX_BITS = 1 << 27;
+    private static final int BITS_PER_CHUNK = 16;
+
+    private final Supplier<Collection<Territory>> source;
+    private final Map<UUID, WorldFilter> worlds = new ConcurrentHashMap<>();
+
+    public ChunkFilter(Supplier<Collection<Territory>> source) {
+        this.source = source;
+    }
+
+    public boolean mightContain(World world, int blockX, int blockZ) {
+        if (world == null) return false;
+        WorldFilter filter = worlds.get(world.getUID());
+        if (filter == null) return false;
+        AtomicLongArray bits = filter.bits;
+        int index = index(chunkKey(blockX >> 4, blockZ >> 4), bits.length());
+        return (bits.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    public synchronized void mark(Territory territory) {
+        mark(worlds, territory);
+    }
+
+    public synchronized void unmark(Territory territory) {
+        UUID worldId = territory.getWorld().getUID();
+        WorldFilter filter = worlds.get(worldId);
+        if (filter == null) return;
+        forEachChunk(territory, (chunkX, chunkZ) -> {
+            long key = chunkKey(chunkX, chunkZ);
+            if (filter.chunks.decrement(key) == 0) {
+                filter.clearBit(key);
+            }
+        });
+        if (filter.chunks.size() == 0) {
+            worlds.remove(worldId);
+        }
+    }
+
+    public synchronized void rebuild() {
+        Map<UUID, WorldFilter> rebuilt = new HashMap<>();
+        for (Territory territory : source.get()) {
+            mark(rebuilt, territory);
+        }
+        worlds.putAll(rebuilt);
+        worlds.keySet().retainAll(rebuilt.keySet());
+    }
+
+    public synchronized void clear() {
+        worlds.clear();
+    }
+
+    private static void mark(Map<UUID, WorldFilter> target, Territory territory) {
+        WorldFilter filter = target.computeIfAbsent(territory.getWorld().getUID(), id -> new WorldFilter());
+        forEachChunk(territory, (chunkX, chunkZ) -> {
+            long key = chunkKey(chunkX, chunkZ);
+            if (filter.chunks.increment(key) == 1) {
+                filter.setBit(key);
+            }
+        });
+        filter.growIfNeeded();
+    }
+
+    private static void forEachChunk(Territory territory, ChunkConsumer consumer) {
+        int centerX = territory.getBeaconLocation().getBlockX();
+        int centerZ = territory.getBeaconLocation().getBlockZ();
+        int radius = territory.getRadius();
+        long radiusSquared = (long) radius * radius;
+
+        for (int chunkX = (centerX - radius) >> 4; chunkX <= (centerX + radius) >> 4; chunkX++) {
+            for (int chunkZ = (centerZ - radius) >> 4; chunkZ <= (centerZ + radius) >> 4; chunkZ++) {
+                long dx = Math.max(0, Math.max((chunkX << 4) - centerX, centerX - ((chunkX << 4) + 15)));
+                long dz = Math.max(0, Math.max((chunkZ << 4) - centerZ, centerZ - ((chunkZ << 4) + 15)));
+                if (dx * dx + dz * dz <= radiusSquared) {
+                    consumer.accept(chunkX, chunkZ);
+                }
+            }
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) ^ (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int index(long chunkKey, int words) {
+        long hash = chunkKey * 0x9E3779B97F4A7C15L;
+        int shift = 64 - (Integer.numberOfTrailingZeros(words) + 6);
+        return (int) (hash >>> shift);
+    }
+
+    private static final class WorldFilter {
+
+        // Covering territories per chunk key, and covered chunks per bit index
+        private final LongCounts chunks = new LongCounts();
+        private LongCounts bitCounts = new LongCounts();
+        private volatile AtomicLongArray bits = new AtomicLongArray(MIN_BITS / 64);
+
+        private void setBit(long chunkKey) {
+            int index = index(chunkKey, bits.length());
+            if (bitCounts.increment(index) == 1) {
+                bits.set(index >>> 6, bits.get(index >>> 6) | (1L << index));
+            }
+        }
+
+        private void clearBit(long chunkKey) {
+            int index = index(chunkKey, bits.length());
+            if (bitCounts.decrement(index) == 0) {
+                bits.set(index >>> 6, bits.get(index >>> 6) & ~(1L << index));
+            }
+        }
+
+        // Doubles like a hash table, so the rehash is amortised over the claims that filled it.
+        // The new array is complete before it is published, and readers keep the old one until then.
+        private void growIfNeeded() {
+            long wanted = (long) chunks.size() * BITS_PER_CHUNK;
+            long size = (long) bits.length() * 64;
+            if (wanted <= size || size >= MAX_BITS) return;
+            while (size < wanted && size < MAX_BITS) {
+                size <<= 1;
+            }
+            AtomicLongArray grown = new AtomicLongArray((int) (size / 64));
+            LongCounts grownCounts = new LongCounts();
+            chunks.forEachKey(key -> {
+                int index = index(key, grown.length());
+                if (grownCounts.increment(index) == 1) {
+                    grown.set(index >>> 6, grown.get(index >>> 6) | (1L << index));
+                }
+            });
+            bitCounts = grownCounts;
+            bits = grown;
+        }
+    }
+
+    // Open-addressed long -> positive int counter; a zero value marks an empty slot
+    private static final class LongCounts {
+
+        private long[] keys = new long[16];
+        private int[] values = new int[16];
+        private int size;
+
+        private int size() {
+            return size;
+        }
+
+        private int increment(long key) {
+            int slot = slot(key);
+            if (values[slot] == 0) {
+                keys[slot] = key;
+                values[slot] = 1;
+                if (++size * 2 > keys.length) {
+                    resize();
+                }
+                return 1;
+            }
+            return ++values[slot];
+        }
+
+        private int decrement(long key) {
+            int slot = slot(key);
+            if (values[slot] == 0) return -1;
+            if (--values[slot] > 0) return values[slot];
+            size--;
+            // Backward-shift deletion keeps every probe chain unbroken without tombstones
+            int mask = keys.length - 1;
+            int gap = slot;
+            for (int next = (gap + 1) & mask; values[next] != 0; next = (next + 1) & mask) {
+                int home = home(keys[next], mask);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    values[next] = 0;
+                    gap = next;
+                }
+            }
+            return 0;
+        }
+
+        private void forEachKey(KeyConsumer consumer) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (values[slot] != 0) {
+                    consumer.accept(keys[slot]);
+                }
+            }
+        }
+
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int slot = home(key, mask);
+            while (values[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldValues[slot] != 0) {
+                    int target = slot(oldKeys[slot]);
+                    keys[target] = oldKeys[slot];
+                    values[target] = oldValues[slot];
+                }
+            }
+        }
+
+        private static int home(long key, int mask) {
+            long hash = key * 0xC2B2AE3D27D4EB4FL;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkConsumer {
+        void accept(int chunkX, int chunkZ);
+    }
+
+    @FunctionalInterface
+    private interface KeyConsumer {
+        void accept(long key);
+    }
+}
@@ -0,0 +1,60 @@
+package com.Lino.territoryBeacons.util;
+
+import org.bukkit.Material;
+import org.bukkit.Tag;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum InteractionRule {
+
+    CONTAINERS("containers", "cannot-access-containers"),
+    DOORS("doors", "cannot-use-doors"),
+    BUTTONS("buttons", "cannot-use-buttons"),
+    LEVERS("levers", "cannot-use-levers"),
+    PRESSURE_PLATES("pressure-plates", "cannot-use-pressure-plates");
+
+    private final String configKey;
+    private final String messageKey;
+
+    InteractionRule(String configKey, String messageKey) {
+        this.configKey = configKey;
+        this.messageKey = messageKey;
+    }
+
+    public String getConfigKey() {
+        return configKey;
+    }
+
+    public String getMessageKey() {
+        return messageKey;
+    }
+
+    public Set<Material> getMaterials() {
+        Set<Material> materials = EnumSet.noneOf(Material.class);
+        switch (this) {
+            case CONTAINERS:
+                // Same block set as "getState() instanceof Container", resolved without a tile-entity snapshot
+                materials.addAll(EnumSet.of(Material.CHEST, Material.TRAPPED_CHEST, Material.BARREL,
+                        Material.FURNACE, Material.BLAST_FURNACE, Material.SMOKER, Material.HOPPER,
+                        Material.DROPPER, Material.DISPENSER, Material.BREWING_STAND, Material.CRAFTER));
+                materials.addAll(Tag.SHULKER_BOXES.getValues());
+                break;
+            case DOORS:
+                materials.addAll(Tag.DOORS.getValues());
+                materials.addAll(Tag.TRAPDOORS.getValues());
+                materials.addAll(Tag.FENCE_GATES.getValues());
+                break;
+            case BUTTONS:
+                materials.addAll(Tag.BUTTONS.getValues());
+                break;
+            case LEVERS:
+                materials.add(Material.LEVER);
+                break;
+            case PRESSURE_PLATES:
+                materials.addAll(Tag.PRESSURE_PLATES.getValues());
+                break;
+        }
+        return materials;
+    }
+}
@@ -0,0 +1,124 @@
+package com.Lino.territoryBeacons.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class MessageTemplate {
+
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("%[A-Za-z0-9_]+%");
+    // Private-use characters stand in for placeholders while colours are resolved, so gradients
+    // advance over a slot exactly once and the slot value inherits the colour at its position.
+    // Resource packs draw custom glyphs from the same block, so the slots are taken from a run the
+    // message itself does not use.
+    private static final char PRIVATE_USE_FIRST = '\uE000';
+    private static final char PRIVATE_USE_LAST = '\uF8FF';
+
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private MessageTemplate(String[] literals, String[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static MessageTemplate compile(String raw) {
+        List<String> slotNames = new ArrayList<>();
+        List<int[]> spans = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(raw);
+        while (matcher.find()) {
+            slotNames.add(matcher.group());
+            spans.add(new int[]{matcher.start(), matcher.end()});
+        }
+        if (slotNames.isEmpty()) {
+            return new MessageTemplate(new String[]{ColorUtil.format(raw)}, new String[0]);
+        }
+
+        int base = freeSlotBase(raw, slotNames.size());
+        if (base < 0) {
+            return compileSegments(raw, slotNames, spans);
+        }
+
+        StringBuilder marked = new StringBuilder(raw.length());
+        int last = 0;
+        for (int i = 0; i < spans.size(); i++) {
+            marked.append(raw, last, spans.get(i)[0]).append((char) (base + i));
+            last = spans.get(i)[1];
+        }
+        marked.append(raw, last, raw.length());
+        String formatted = ColorUtil.format(marked.toString());
+
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < formatted.length(); i++) {
+            int slot = formatted.charAt(i) - base;
+            if (slot >= 0 && slot < slotNames.size()) {
+                literals.add(formatted.substring(start, i));
+                placeholders.add(slotNames.get(slot));
+                start = i + 1;
+            }
+        }
+        literals.add(formatted.substring(start));
+        return new MessageTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    // First private-use character of a run of count characters that never occur in raw, or -1
+    private static int freeSlotBase(String raw, int count) {
+        boolean[] used = new boolean[PRIVATE_USE_LAST - PRIVATE_USE_FIRST + 1];
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= PRIVATE_USE_FIRST && c <= PRIVATE_USE_LAST) {
+                used[c - PRIVATE_USE_FIRST] = true;
+            }
+        }
+        int run = 0;
+        for (int i = 0; i < used.length; i++) {
+            run = used[i] ? 0 : run + 1;
+            if (run == count) {
+                return PRIVATE_USE_FIRST + i - count + 1;
+            }
+        }
+        return -1;
+    }
+
+    // Only reached when the message fills the private-use block; each literal is coloured on its own,
+    // so a gradient restarts after every placeholder but no character is lost
+    private static MessageTemplate compileSegments(String raw, List<String> slotNames, List<int[]> spans) {
+        String[] literals = new String[spans.size() + 1];
+        int last = 0;
+        for (int i = 0; i < spans.size(); i++) {
+            literals[i] = ColorUtil.format(raw.substring(last, spans.get(i)[0]));
+            last = spans.get(i)[1];
+        }
+        literals[spans.size()] = ColorUtil.format(raw.substring(last));
+        return new MessageTemplate(literals, slotNames.toArray(new String[0]));
+    }
+
+    public String apply(String... placeholderPairs) {
+        if (placeholders.length == 0) {
+            return literals[0];
+        }
+        StringBuilder builder = new StringBuilder(literalLength + placeholders.length * 16);
+        for (int i = 0; i < placeholders.length; i++) {
+            builder.append(literals[i]).append(valueFor(placeholders[i], placeholderPairs));
+        }
+        return builder.append(literals[placeholders.length]).toString();
+    }
+
+    private static String valueFor(String placeholder, String[] placeholderPairs) {
+        for (int i = 0; i + 1 < placeholderPairs.length; i += 2) {
+            if (placeholder.equals(placeholderPairs[i])) {
+                return placeholderPairs[i + 1];
+            }
+        }
+        return placeholder;
+    }
+}
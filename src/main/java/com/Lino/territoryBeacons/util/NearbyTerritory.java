@@ -0,0 +1,23 @@
+package com.Lino.territoryBeacons.util;
+
+import com.Lino.territoryBeacons.Territory;
+
+public final class NearbyTerritory {
+
+    private final Territory territory;
+    private final double distance;
+
+    public NearbyTerritory(Territory territory, double distance) {
+        this.territory = territory;
+        this.distance = distance;
+    }
+
+    public Territory getTerritory() {
+        return territory;
+    }
+
+    // Horizontal distance to the claim edge, 0 when the point is inside the claim
+    public double getDistance() {
+        return distance;
+    }
+}
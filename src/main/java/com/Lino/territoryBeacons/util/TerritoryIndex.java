@@ -0,0 +1,311 @@
+package com.Lino.territoryBeacons.util;
+
+import com.Lino.territoryBeacons.Territory;
+import com.Lino.territoryBeacons.jfr.TerritoryLookupEvent;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Territories keyed by beacon plus a per-world uniform grid. Each territory is linked into every
+// 256x256 cell its bounding square touches; cells are copy-on-write arrays so reads never lock.
+public class TerritoryIndex {
+
+    private static final int CELL_SHIFT = 8;
+
+    private final Map<Location, Territory> territories = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<Long, Territory[]>> grids = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> worldCounts = new ConcurrentHashMap<>();
+    private final Map<UUID, int[]> worldExtents = new ConcurrentHashMap<>();
+    private final ChunkFilter chunkFilter = new ChunkFilter(territories::values);
+    private boolean bulkLoading = false;
+
+    public synchronized void beginBulkLoad() {
+        bulkLoading = true;
+    }
+
+    public synchronized void endBulkLoad() {
+        bulkLoading = false;
+        chunkFilter.rebuild();
+    }
+
+    public synchronized Territory add(Location location, Territory territory) {
+        Territory previous = territories.put(location, territory);
+        // Readers on other threads check the filter before the grid, so widen the filter first and
+        // link the new claim before unlinking the one it replaces; a reader sees one or the other
+        if (!bulkLoading) {
+            chunkFilter.mark(territory);
+        }
+        link(territory);
+        if (previous != null) {
+            unlink(previous);
+            if (!bulkLoading) {
+                chunkFilter.unmark(previous);
+            }
+        }
+        return previous;
+    }
+
+    public synchronized Territory remove(Location location) {
+        Territory territory = territories.remove(location);
+        if (territory != null) {
+            unlink(territory);
+            if (!bulkLoading) {
+                chunkFilter.unmark(territory);
+            }
+        }
+        return territory;
+    }
+
+    public synchronized void clear() {
+        territories.clear();
+        grids.clear();
+        worldCounts.clear();
+        worldExtents.clear();
+        chunkFilter.clear();
+    }
+
+    public Territory get(Location location) {
+        return territories.get(location);
+    }
+
+    public Collection<Territory> values() {
+        return territories.values();
+    }
+
+    public Territory findByOwner(UUID ownerUUID) {
+        for (Territory territory : territories.values()) {
+            if (territory.getOwnerUUID().equals(ownerUUID)) {
+                return territory;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return territories.size();
+    }
+
+    // The event is never allocated for real while the JFR setting is off: the JIT folds isEnabled()
+    // and scalar-replaces the unused object
+    public Territory getTerritoryAt(World world, double x, double y, double z) {
+        TerritoryLookupEvent event = new TerritoryLookupEvent();
+        if (!event.isEnabled()) {
+            return lookup(world, x, y, z, null);
+        }
+        event.begin();
+        Territory territory = lookup(world, x, y, z, event);
+        event.blockX = (int) Math.floor(x);
+        event.blockZ = (int) Math.floor(z);
+        event.hit = territory != null;
+        event.commit();
+        return territory;
+    }
+
+    private Territory lookup(World world, double x, double y, double z, TerritoryLookupEvent event) {
+        int blockX = (int) Math.floor(x);
+        int blockZ = (int) Math.floor(z);
+        if (!chunkFilter.mightContain(world, blockX, blockZ)) {
+            return null;
+        }
+        Map<Long, Territory[]> grid = grids.get(world.getUID());
+        if (grid == null) return null;
+        Territory[] cell = grid.get(cellKey(blockX >> CELL_SHIFT, blockZ >> CELL_SHIFT));
+        if (cell == null) return null;
+        if (event != null) {
+            event.candidates = cell.length;
+        }
+        for (Territory territory : cell) {
+            if (territory.contains(world, x, y, z)) {
+                return territory;
+            }
+        }
+        return null;
+    }
+
+    public boolean anyBeaconWithin(World world, double x, double y, double z, double distance) {
+        double distanceSquared = distance * distance;
+        Map<Long, Territory[]> grid = grids.get(world.getUID());
+        if (grid == null) return false;
+        for (Territory[] cell : cellsAround(grid, x, z, distance)) {
+            for (Territory territory : cell) {
+                if (territory.distanceSquared(x, y, z) < distanceSquared) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean anyReaching(World world, double x, double y, double z, int radius) {
+        Map<Long, Territory[]> grid = grids.get(world.getUID());
+        if (grid == null) return false;
+        for (Territory[] cell : cellsAround(grid, x, z, radius)) {
+            for (Territory territory : cell) {
+                double reach = territory.getRadius() + radius;
+                if (territory.distanceSquared(x, y, z) < reach * reach) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public List<NearbyTerritory> nearest(World world, double x, double z, double maxDistance, int limit) {
+        List<NearbyTerritory> result = new ArrayList<>();
+        if (world == null || limit <= 0) return result;
+        UUID worldId = world.getUID();
+        Map<Long, Territory[]> grid = grids.get(worldId);
+        Integer total = worldCounts.get(worldId);
+        int[] extent = worldExtents.get(worldId);
+        if (grid == null || total == null || extent == null) return result;
+
+        PriorityQueue<NearbyTerritory> best = new PriorityQueue<>(limit,
+                Comparator.comparingDouble(NearbyTerritory::getDistance).reversed());
+        Set<Territory> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int centerX = (int) Math.floor(x) >> CELL_SHIFT;
+        int centerZ = (int) Math.floor(z) >> CELL_SHIFT;
+
+        for (int ring = 0; ; ring++) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                collect(grid.get(cellKey(centerX + dx, centerZ - ring)), x, z, maxDistance, limit, best, seen);
+                if (ring > 0) {
+                    collect(grid.get(cellKey(centerX + dx, centerZ + ring)), x, z, maxDistance, limit, best, seen);
+                }
+            }
+            for (int dz = -ring + 1; dz <= ring - 1; dz++) {
+                collect(grid.get(cellKey(centerX - ring, centerZ + dz)), x, z, maxDistance, limit, best, seen);
+                collect(grid.get(cellKey(centerX + ring, centerZ + dz)), x, z, maxDistance, limit, best, seen);
+            }
+
+            // Anything not seen yet lies entirely outside the searched square, so at least this far away
+            double covered = Math.min(
+                    Math.min(x - ((long) (centerX - ring) << CELL_SHIFT), ((long) (centerX + ring + 1) << CELL_SHIFT) - x),
+                    Math.min(z - ((long) (centerZ - ring) << CELL_SHIFT), ((long) (centerZ + ring + 1) << CELL_SHIFT) - z));
+            if (seen.size() >= total || covered > maxDistance) break;
+            if (best.size() >= limit && best.peek().getDistance() <= covered) break;
+            if (centerX - ring <= extent[0] && centerZ - ring <= extent[1]
+                    && centerX + ring >= extent[2] && centerZ + ring >= extent[3]) break;
+        }
+
+        result.addAll(best);
+        result.sort(Comparator.comparingDouble(NearbyTerritory::getDistance));
+        return result;
+    }
+
+    private static void collect(Territory[] cell, double x, double z, double maxDistance, int limit,
+                                PriorityQueue<NearbyTerritory> best, Set<Territory> seen) {
+        if (cell == null) return;
+        for (Territory territory : cell) {
+            if (!seen.add(territory)) continue;
+            double distance = territory.edgeDistance(x, z);
+            if (distance > maxDistance) continue;
+            if (best.size() < limit) {
+                best.add(new NearbyTerritory(territory, distance));
+            } else if (distance < best.peek().getDistance()) {
+                best.poll();
+                best.add(new NearbyTerritory(territory, distance));
+            }
+        }
+    }
+
+    private static List<Territory[]> cellsAround(Map<Long, Territory[]> grid, double x, double z, double distance) {
+        List<Territory[]> cells = new ArrayList<>();
+        int minX = (int) Math.floor(x - distance) >> CELL_SHIFT;
+        int maxX = (int) Math.floor(x + distance) >> CELL_SHIFT;
+        int minZ = (int) Math.floor(z - distance) >> CELL_SHIFT;
+        int maxZ = (int) Math.floor(z + distance) >> CELL_SHIFT;
+        for (int cellX = minX; cellX <= maxX; cellX++) {
+            for (int cellZ = minZ; cellZ <= maxZ; cellZ++) {
+                Territory[] cell = grid.get(cellKey(cellX, cellZ));
+                if (cell != null) {
+                    cells.add(cell);
+                }
+            }
+        }
+        return cells;
+    }
+
+    private void link(Territory territory) {
+        UUID worldId = territory.getWorld().getUID();
+        Map<Long, Territory[]> grid = grids.computeIfAbsent(worldId, id -> new ConcurrentHashMap<>());
+        int[] bounds = cellBounds(territory);
+        for (int cellX = bounds[0]; cellX <= bounds[2]; cellX++) {
+            for (int cellZ = bounds[1]; cellZ <= bounds[3]; cellZ++) {
+                long key = cellKey(cellX, cellZ);
+                Territory[] current = grid.get(key);
+                Territory[] next;
+                if (current == null) {
+                    next = new Territory[]{territory};
+                } else {
+                    next = new Territory[current.length + 1];
+                    System.arraycopy(current, 0, next, 0, current.length);
+                    next[current.length] = territory;
+                }
+                grid.put(key, next);
+            }
+        }
+        worldCounts.merge(worldId, 1, Integer::sum);
+        int[] extent = worldExtents.get(worldId);
+        if (extent == null) {
+            worldExtents.put(worldId, bounds);
+        } else {
+            worldExtents.put(worldId, new int[]{
+                    Math.min(extent[0], bounds[0]), Math.min(extent[1], bounds[1]),
+                    Math.max(extent[2], bounds[2]), Math.max(extent[3], bounds[3])});
+        }
+    }
+
+    private void unlink(Territory territory) {
+        UUID worldId = territory.getWorld().getUID();
+        Map<Long, Territory[]> grid = grids.get(worldId);
+        if (grid == null) return;
+        int[] bounds = cellBounds(territory);
+        for (int cellX = bounds[0]; cellX <= bounds[2]; cellX++) {
+            for (int cellZ = bounds[1]; cellZ <= bounds[3]; cellZ++) {
+                long key = cellKey(cellX, cellZ);
+                Territory[] current = grid.get(key);
+                if (current == null) continue;
+                List<Territory> remaining = new ArrayList<>(current.length);
+                for (Territory other : current) {
+                    if (other != territory) {
+                        remaining.add(other);
+                    }
+                }
+                if (remaining.isEmpty()) {
+                    grid.remove(key);
+                } else {
+                    grid.put(key, remaining.toArray(new Territory[0]));
+                }
+            }
+        }
+        // Extents only grow; a stale extent just lets a nearest() search run a few rings longer
+        if (worldCounts.merge(worldId, -1, Integer::sum) <= 0) {
+            worldCounts.remove(worldId);
+            worldExtents.remove(worldId);
+            grids.remove(worldId);
+        }
+    }
+
+    private static int[] cellBounds(Territory territory) {
+        Location center = territory.getBeaconLocation();
+        int radius = territory.getRadius();
+        return new int[]{
+                (center.getBlockX() - radius) >> CELL_SHIFT, (center.getBlockZ() - radius) >> CELL_SHIFT,
+                (center.getBlockX() + radius) >> CELL_SHIFT, (center.getBlockZ() + radius) >> CELL_SHIFT};
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,86 @@
+package com.Lino.territoryBeacons.util;
+
+import com.Lino.territoryBeacons.Territory;
+import org.bukkit.Location;
+
+import java.util.UUID;
+
+public final class TerritorySnapshot {
+
+    private final String territoryName;
+    private final String ownerName;
+    private final UUID ownerUUID;
+    private final String worldName;
+    private final int x;
+    private final int y;
+    private final int z;
+    private final int tier;
+    private final int radius;
+    private final double influence;
+    private final boolean decaying;
+
+    public TerritorySnapshot(Territory territory, boolean decaying) {
+        Location location = territory.getBeaconLocation();
+        this.territoryName = territory.getTerritoryName();
+        this.ownerName = territory.getOwnerName();
+        this.ownerUUID = territory.getOwnerUUID();
+        this.worldName = location.getWorld().getName();
+        this.x = location.getBlockX();
+        this.y = location.getBlockY();
+        this.z = location.getBlockZ();
+        this.tier = territory.getTier();
+        this.radius = territory.getRadius();
+        this.influence = territory.getInfluence();
+        this.decaying = decaying;
+    }
+
+    public double distanceSquared(double px, double pz) {
+        double dx = x - px;
+        double dz = z - pz;
+        return dx * dx + dz * dz;
+    }
+
+    public String getTerritoryName() {
+        return territoryName;
+    }
+
+    public String getOwnerName() {
+        return ownerName;
+    }
+
+    public UUID getOwnerUUID() {
+        return ownerUUID;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    public int getTier() {
+        return tier;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public double getInfluence() {
+        return influence;
+    }
+
+    public boolean isDecaying() {
+        return decaying;
+    }
+}